@@ -1,6 +0,0 @@
-public class Main {
-    public static void main(String[] args) {
-        LedgerSystem ledger = new LedgerSystem();
-        ledger.run();
-    }
-}
\ No newline at end of file
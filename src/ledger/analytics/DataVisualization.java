@@ -0,0 +1,180 @@
+package ledger.analytics;
+
+import ledger.model.AmortizationSchedule;
+import ledger.model.CategoryClassifier;
+import ledger.model.Loan;
+import ledger.model.Transaction;
+
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.stream.Collectors;
+
+public class DataVisualization {
+    private static final int GRAPH_WIDTH = 50;
+    private static final int GRAPH_HEIGHT = 10;
+    // Row formats and the bar itself are built once instead of per printed row
+    private static final String MONTH_ROW = "%s |%-" + GRAPH_WIDTH + "s| $%.2f%n";
+    private static final String CATEGORY_ROW = "%-15s |%-" + GRAPH_WIDTH + "s| %.1f%% ($%.2f)%n";
+    private static final String PROJECTION_ROW = "Month %-3d |%-" + GRAPH_WIDTH + "s| $%.2f%n";
+    private static final String PROGRESS_ROW = "Progress |%-" + GRAPH_WIDTH + "s| %.1f%%%n";
+    private static final String BAR = "=".repeat(GRAPH_WIDTH);
+
+    // Group expenses by month, keyed as yyyy-MM
+    public static Map<String, BigDecimal> monthlySpending(List<Transaction> transactions) {
+        return transactions.stream()
+                .filter(Transaction::isExpense)
+                .collect(Collectors.groupingBy(
+                        t -> t.getDate().getYear() + "-" + String.format("%02d", t.getDate().getMonthValue()),
+                        Collectors.reducing(BigDecimal.ZERO,
+                                Transaction::getAmount,
+                                BigDecimal::add)));
+    }
+
+    // Group expenses by classified category, summing cents per category id
+    public static Map<String, BigDecimal> categorySpending(List<Transaction> transactions) {
+        long[] totals = new long[CategoryClassifier.count()];
+        boolean[] seen = new boolean[totals.length];
+        for (Transaction t : transactions) {
+            if (t.isExpense()) {
+                int category = t.getCategoryId();
+                totals[category] += t.getAmount().unscaledValue().longValueExact();
+                seen[category] = true;
+            }
+        }
+
+        Map<String, BigDecimal> categorySpending = new HashMap<>();
+        for (int category = 0; category < totals.length; category++) {
+            if (seen[category]) {
+                categorySpending.put(CategoryClassifier.name(category), BigDecimal.valueOf(totals[category], 2));
+            }
+        }
+        return categorySpending;
+    }
+
+    public static void showSpendingTrends(List<Transaction> transactions) {
+        showSpendingTrends(monthlySpending(transactions));
+    }
+
+    public static void showSpendingTrends(Map<String, BigDecimal> monthlySpending) {
+        System.out.println("\n=== Spending Trends ===");
+
+        // Find max value for scaling
+        BigDecimal maxSpending = monthlySpending.values().stream()
+                .max(BigDecimal::compareTo)
+                .orElse(BigDecimal.ONE);
+
+        // Draw bar chart
+        monthlySpending.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey())
+                .forEach(entry -> {
+                    int barLength = entry.getValue()
+                            .multiply(BigDecimal.valueOf(GRAPH_WIDTH))
+                            .divide(maxSpending, 0, BigDecimal.ROUND_DOWN)
+                            .intValue();
+                    System.out.printf(MONTH_ROW,
+                            entry.getKey(),
+                            bar(barLength),
+                            entry.getValue());
+                });
+    }
+
+    public static void showSpendingDistribution(List<Transaction> transactions) {
+        showSpendingDistribution(categorySpending(transactions));
+    }
+
+    public static void showSpendingDistribution(Map<String, BigDecimal> categorySpending) {
+        System.out.println("\n=== Spending Distribution ===");
+
+        BigDecimal totalSpending = categorySpending.values().stream()
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+
+        // Calculate and display percentages
+        categorySpending.entrySet().stream()
+                .sorted((e1, e2) -> e2.getValue().compareTo(e1.getValue()))
+                .forEach(entry -> {
+                    BigDecimal percentage = entry.getValue()
+                            .multiply(BigDecimal.valueOf(100))
+                            .divide(totalSpending, 2, BigDecimal.ROUND_HALF_UP);
+                    int barLength = percentage
+                            .multiply(BigDecimal.valueOf(GRAPH_WIDTH))
+                            .divide(BigDecimal.valueOf(100), 0, BigDecimal.ROUND_DOWN)
+                            .intValue();
+                    System.out.printf(CATEGORY_ROW,
+                            entry.getKey(),
+                            bar(barLength),
+                            percentage,
+                            entry.getValue());
+                });
+    }
+
+    public static void showExpensePercentiles(SpendingDigest spending) {
+        System.out.println("\n--- Expense Size ---");
+        if (spending.count() == 0) {
+            System.out.println("No expenses recorded.");
+            return;
+        }
+        System.out.printf("Median: $%.2f | 90th percentile: $%.2f | 99th percentile: $%.2f (%,d expenses)%n",
+                spending.quantile(0.5), spending.quantile(0.9), spending.quantile(0.99), spending.count());
+    }
+
+    public static void showSavingsGrowth(BigDecimal currentSavings, int savingsPercentage,
+                                         BigDecimal monthlyDebit, int months) {
+        System.out.println("\n=== Savings Growth Projection ===");
+        System.out.printf("Expected monthly debit: $%.2f (from your history)%n", monthlyDebit);
+
+        long[] balances = SavingsProjection.project(
+                currentSavings.unscaledValue().longValueExact(),
+                monthlyDebit.unscaledValue().longValueExact(),
+                savingsPercentage,
+                months);
+        long maxBalance = Math.max(1, balances.length == 0 ? 0 : balances[balances.length - 1]);
+
+        // Long horizons are shown once per year to keep the chart readable
+        int step = months > 24 ? 12 : 1;
+        for (int month = step; month <= months; month += step) {
+            long balance = balances[month - 1];
+            int barLength = (int) Math.max(0, balance * GRAPH_WIDTH / maxBalance);
+            System.out.printf(PROJECTION_ROW,
+                    month,
+                    bar(barLength),
+                    BigDecimal.valueOf(balance, 2));
+        }
+    }
+
+    public static void showLoanRepayment(Loan loan) {
+        if (loan == null || loan.getStatus().equals("repaid")) {
+            System.out.println("\nNo active loan to display.");
+            return;
+        }
+
+        System.out.println("\n=== Loan Repayment Progress ===");
+        AmortizationSchedule schedule = loan.getSchedule();
+        BigDecimal totalAmount = schedule.getTotalRepayment();
+        BigDecimal remaining = loan.getOutstandingBalance();
+        BigDecimal paid = schedule.getPaid().min(totalAmount);
+
+        int progressBarLength = paid
+                .multiply(BigDecimal.valueOf(GRAPH_WIDTH))
+                .divide(totalAmount, 0, BigDecimal.ROUND_DOWN)
+                .intValue();
+
+        System.out.printf(PROGRESS_ROW,
+                bar(progressBarLength),
+                paid.multiply(BigDecimal.valueOf(100)).divide(totalAmount, 2, BigDecimal.ROUND_HALF_UP));
+        System.out.printf("Paid: $%.2f | Remaining: $%.2f | Total: $%.2f%n",
+                paid, remaining, totalAmount);
+
+        if (!schedule.isComplete()) {
+            int next = schedule.getNextInstallment();
+            System.out.printf("Next installment %d of %d: $%.2f due %s%n",
+                    next + 1, schedule.getInstallments(), schedule.getAmountDue(),
+                    schedule.getNextDueDate(loan.getCreatedAt()));
+        }
+    }
+
+    private static String bar(int length) {
+        return BAR.substring(0, Math.max(0, Math.min(length, GRAPH_WIDTH)));
+    }
+}
@@ -0,0 +1,175 @@
+package ledger.analytics;
+
+import ledger.storage.TransactionArchive;
+
+import java.io.*;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.file.*;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.stream.IntStream;
+
+public class DepositInterestPredictor {
+    public static final String BANKS_FILE = "banks.csv";
+    // Rates are held as percent * 10^4, so 2.85% is 28500 and all interest math stays in longs
+    private static final int RATE_SCALE = 4;
+    private static final long MONTHLY_DIVISOR = 12L * 100 * 10_000;
+
+    private final String[] bankNames;
+    private final long[] rateFactors;
+
+    public DepositInterestPredictor(Map<String, BigDecimal> rates) {
+        bankNames = rates.keySet().toArray(new String[0]);
+        Arrays.sort(bankNames);
+        rateFactors = new long[bankNames.length];
+        for (int i = 0; i < bankNames.length; i++) {
+            rateFactors[i] = rates.get(bankNames[i]).movePointRight(RATE_SCALE).longValueExact();
+        }
+    }
+
+    public static Map<String, BigDecimal> defaultRates() {
+        Map<String, BigDecimal> rates = new LinkedHashMap<>();
+        rates.put("RHB", new BigDecimal("2.6"));
+        rates.put("Maybank", new BigDecimal("2.5"));
+        rates.put("Hong Leong", new BigDecimal("2.3"));
+        rates.put("Alliance", new BigDecimal("2.85"));
+        rates.put("AmBank", new BigDecimal("2.55"));
+        rates.put("Standard Chartered", new BigDecimal("2.65"));
+        return rates;
+    }
+
+    public static void writeDefaults(Path file) throws IOException {
+        try (PrintWriter writer = new PrintWriter(Files.newBufferedWriter(file))) {
+            writer.println("bank_name,interest_rate");
+            for (Map.Entry<String, BigDecimal> rate : defaultRates().entrySet()) {
+                writer.println(rate.getKey() + "," + rate.getValue());
+            }
+        }
+    }
+
+    public static DepositInterestPredictor load(Path file) throws IOException {
+        List<String> lines = Files.readAllLines(file);
+        Map<String, BigDecimal> rates = new LinkedHashMap<>();
+        for (int i = 1; i < lines.size(); i++) {
+            if (lines.get(i).isBlank()) continue;
+            String[] parts = lines.get(i).split(",");
+            rates.put(parts[0].trim(), new BigDecimal(parts[1].trim()));
+        }
+        return new DepositInterestPredictor(rates);
+    }
+
+    public int bankCount() { return bankNames.length; }
+    public String bankName(int bank) { return bankNames[bank]; }
+    public BigDecimal rate(int bank) { return BigDecimal.valueOf(rateFactors[bank], RATE_SCALE); }
+
+    public int indexOf(String bankName) {
+        return Math.max(-1, Arrays.binarySearch(bankNames, bankName));
+    }
+
+    // balance * rate / 100 / 12, rounded half up to the cent
+    public long monthlyInterestCents(long balanceCents, int bank) {
+        return divideHalfUp(balanceCents * rateFactors[bank], MONTHLY_DIVISOR);
+    }
+
+    // Interest earned over `months` when each month's interest is added to the balance
+    public long compoundedInterestCents(long balanceCents, int bank, int months) {
+        long balance = balanceCents;
+        for (int month = 0; month < months; month++) {
+            balance += monthlyInterestCents(balance, bank);
+        }
+        return balance - balanceCents;
+    }
+
+    // result[user][bank] for every balance against every bank
+    public long[][] monthlyInterestForAll(long[] balancesCents) {
+        return compoundedInterestForAll(balancesCents, 1);
+    }
+
+    public long[][] compoundedInterestForAll(long[] balancesCents, int months) {
+        long[][] result = new long[balancesCents.length][bankNames.length];
+        IntStream.range(0, balancesCents.length).parallel().forEach(user -> {
+            for (int bank = 0; bank < bankNames.length; bank++) {
+                result[user][bank] = compoundedInterestCents(balancesCents[user], bank, months);
+            }
+        });
+        return result;
+    }
+
+    // Balances in cents indexed by userId, computed straight from transactions.csv without building objects
+    public static long[] balancesFromFile(String transactionsFile) throws IOException {
+        return balancesFromFile(transactionsFile, Collections.emptyMap());
+    }
+
+    // As above, starting from the given balances, e.g. those of rows already archived
+    public static long[] balancesFromFile(String transactionsFile, Map<Integer, Long> openingCents) throws IOException {
+        long[] balances = new long[1024];
+        for (Map.Entry<Integer, Long> opening : openingCents.entrySet()) {
+            int userId = opening.getKey();
+            if (userId >= balances.length) {
+                balances = Arrays.copyOf(balances, Math.max(balances.length * 2, userId + 1));
+            }
+            balances[userId] += opening.getValue();
+        }
+        try (BufferedReader reader = Files.newBufferedReader(Paths.get(transactionsFile))) {
+            reader.readLine(); // Skip header
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] parts = line.split(",");
+                int userId = Integer.parseInt(parts[1]);
+                if (userId >= balances.length) {
+                    balances = Arrays.copyOf(balances, Math.max(balances.length * 2, userId + 1));
+                }
+                // Rounded like Transaction, since the CSV keeps amounts as they were entered
+                long cents = new BigDecimal(parts[3]).setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+                balances[userId] += parts[2].equals("debit") ? cents : -cents;
+            }
+        }
+        return balances;
+    }
+
+    private static long divideHalfUp(long dividend, long divisor) {
+        long quotient = dividend / divisor;
+        long remainder = dividend % divisor;
+        if (Math.abs(remainder) * 2 >= divisor) {
+            quotient += Long.signum(dividend);
+        }
+        return quotient;
+    }
+
+    // Nightly projection: java ledger.analytics.DepositInterestPredictor [months] [output]
+    public static void main(String[] args) throws IOException {
+        int months = args.length > 0 ? Integer.parseInt(args[0]) : 12;
+        String output = args.length > 1 ? args[1] : "interest_projection.csv";
+
+        long start = System.nanoTime();
+        DepositInterestPredictor predictor = Files.exists(Paths.get(BANKS_FILE))
+                ? load(Paths.get(BANKS_FILE))
+                : new DepositInterestPredictor(defaultRates());
+        // Rows older than the hot window live in the archive, which keeps their balances
+        TransactionArchive archive = TransactionArchive.open(Paths.get(""));
+        long[] balances = balancesFromFile("transactions.csv", archive.balanceCents());
+        long[][] monthly = predictor.monthlyInterestForAll(balances);
+        long[][] compounded = predictor.compoundedInterestForAll(balances, months);
+
+        int rows = 0;
+        try (PrintWriter writer = new PrintWriter(new BufferedWriter(new FileWriter(output), 1 << 16))) {
+            writer.println("user_id,bank_name,balance,monthly_interest,compounded_interest_" + months + "m,date");
+            LocalDate today = LocalDate.now();
+            for (int userId = 1; userId < balances.length; userId++) {
+                if (balances[userId] <= 0) continue;
+                for (int bank = 0; bank < predictor.bankCount(); bank++) {
+                    writer.printf("%d,%s,%s,%s,%s,%s%n",
+                            userId, predictor.bankName(bank),
+                            BigDecimal.valueOf(balances[userId], 2),
+                            BigDecimal.valueOf(monthly[userId][bank], 2),
+                            BigDecimal.valueOf(compounded[userId][bank], 2),
+                            today);
+                    rows++;
+                }
+            }
+        }
+        System.out.printf("Wrote %d projections to %s in %d ms%n",
+                rows, output, (System.nanoTime() - start) / 1_000_000);
+    }
+}
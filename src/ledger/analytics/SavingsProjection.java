@@ -0,0 +1,119 @@
+package ledger.analytics;
+
+import ledger.model.CategoryClassifier;
+import ledger.model.Transaction;
+import ledger.model.User;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.stream.IntStream;
+
+public class SavingsProjection {
+    // Months of history used to estimate the expected monthly debit
+    public static final int HISTORY_MONTHS = 6;
+    private static final int MOVING_AVERAGE_MONTHS = 3;
+    private static final int SAVINGS_CATEGORY = CategoryClassifier.classify("savings");
+
+    public enum Estimator { MOVING_AVERAGE, MEDIAN }
+
+    // Debit totals in cents for each of the last `months` calendar months up to and including asOf's month.
+    // Index 0 is the oldest month. Savings transfers are ignored since they are not new income.
+    public static long[] monthlyDebitCents(List<Transaction> transactions, int userId, LocalDate asOf, int months) {
+        long[] totals = new long[months];
+        int lastMonth = monthIndex(asOf);
+        for (Transaction t : transactions) {
+            if (t.getUserId() != userId) continue;
+            int slot = slot(t, lastMonth, months);
+            if (slot >= 0) totals[slot] += t.getAmount().unscaledValue().longValueExact();
+        }
+        return totals;
+    }
+
+    // Same rollup for every user in one pass; row i belongs to userIds[i]
+    public static long[][] monthlyDebitCents(List<Transaction> transactions, int[] userIds, LocalDate asOf, int months) {
+        Map<Integer, Integer> rows = new HashMap<>();
+        for (int i = 0; i < userIds.length; i++) rows.put(userIds[i], i);
+
+        long[][] totals = new long[userIds.length][months];
+        int lastMonth = monthIndex(asOf);
+        for (Transaction t : transactions) {
+            Integer row = rows.get(t.getUserId());
+            if (row == null) continue;
+            int slot = slot(t, lastMonth, months);
+            if (slot >= 0) totals[row][slot] += t.getAmount().unscaledValue().longValueExact();
+        }
+        return totals;
+    }
+
+    public static long expectedMonthlyDebit(long[] monthly, Estimator estimator) {
+        if (monthly.length == 0) return 0;
+
+        if (estimator == Estimator.MOVING_AVERAGE) {
+            int window = Math.min(MOVING_AVERAGE_MONTHS, monthly.length);
+            long sum = 0;
+            for (int i = monthly.length - window; i < monthly.length; i++) sum += monthly[i];
+            return Math.round((double) sum / window);
+        }
+
+        long[] sorted = monthly.clone();
+        Arrays.sort(sorted);
+        int mid = sorted.length / 2;
+        return sorted.length % 2 == 1 ? sorted[mid] : (sorted[mid - 1] + sorted[mid]) / 2;
+    }
+
+    // Savings balance in cents at the end of each month of the horizon
+    public static long[] project(long savingsCents, long monthlyDebitCents, int percentage, int months) {
+        long increase = monthlyIncrease(monthlyDebitCents, percentage);
+        long[] balances = new long[months];
+        for (int month = 0; month < months; month++) {
+            savingsCents += increase;
+            balances[month] = savingsCents;
+        }
+        return balances;
+    }
+
+    // Final savings in cents for every user under every savings percentage scenario: result[user][scenario]
+    public static long[][] sweep(long[] savingsCents, long[] monthlyDebitCents, int[] percentages, int months) {
+        long[][] result = new long[savingsCents.length][percentages.length];
+        IntStream.range(0, savingsCents.length).parallel().forEach(user -> {
+            long[] row = result[user];
+            for (int s = 0; s < percentages.length; s++) {
+                row[s] = savingsCents[user] + months * monthlyIncrease(monthlyDebitCents[user], percentages[s]);
+            }
+        });
+        return result;
+    }
+
+    // Batch entry point: estimates each user's monthly debit from history and sweeps the given percentages
+    public static long[][] projectAll(List<Transaction> transactions, List<User> users, int[] percentages,
+                                      int months, LocalDate asOf, Estimator estimator) {
+        int[] userIds = new int[users.size()];
+        long[] savings = new long[users.size()];
+        for (int i = 0; i < users.size(); i++) {
+            userIds[i] = users.get(i).getUserId();
+            savings[i] = users.get(i).getSavings().unscaledValue().longValueExact();
+        }
+
+        long[][] history = monthlyDebitCents(transactions, userIds, asOf, HISTORY_MONTHS);
+        long[] expected = new long[users.size()];
+        IntStream.range(0, users.size()).parallel()
+                .forEach(i -> expected[i] = expectedMonthlyDebit(history[i], estimator));
+
+        return sweep(savings, expected, percentages, months);
+    }
+
+    // percentage of the debit, rounded half up to the cent
+    private static long monthlyIncrease(long monthlyDebitCents, int percentage) {
+        return (monthlyDebitCents * percentage + 50) / 100;
+    }
+
+    private static int slot(Transaction t, int lastMonth, int months) {
+        if (!t.getType().equals("debit") || t.getCategoryId() == SAVINGS_CATEGORY) return -1;
+        int slot = months - 1 - (lastMonth - monthIndex(t.getDate()));
+        return slot >= 0 && slot < months ? slot : -1;
+    }
+
+    private static int monthIndex(LocalDate date) {
+        return date.getYear() * 12 + date.getMonthValue() - 1;
+    }
+}
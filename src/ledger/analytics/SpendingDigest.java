@@ -0,0 +1,184 @@
+package ledger.analytics;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.Arrays;
+
+// Streaming sketch of expense sizes for approximate percentiles (a merging t-digest).
+//
+// Amounts in cents are buffered and periodically folded into a sorted list of centroids (mean, weight).
+// Centroids near the tails are kept small and those near the median large, following the arcsine scale
+// function, so at most about COMPRESSION centroids answer any quantile with tight error at p1/p99.
+// Digests merge, which lets shards and archive segments each keep one and report together.
+// Not thread-safe; owners guard it with their own lock.
+public class SpendingDigest {
+    private static final double COMPRESSION = 200;
+    private static final int BUFFER = 2048;
+
+    private double[] means = new double[0];
+    private long[] weights = new long[0];
+    private int centroids;
+    private final double[] buffer = new double[BUFFER];
+    private int buffered;
+    private long count;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+
+    public void add(long cents) {
+        buffer[buffered++] = cents;
+        count++;
+        min = Math.min(min, cents);
+        max = Math.max(max, cents);
+        if (buffered == BUFFER) compress();
+    }
+
+    public void merge(SpendingDigest other) {
+        if (other.count == 0) return;
+        compress();
+        SpendingDigest incoming = other.copy();
+        collapse(means, weights, centroids, incoming.means, incoming.weights, incoming.centroids,
+                count + incoming.count);
+        count += incoming.count;
+        min = Math.min(min, incoming.min);
+        max = Math.max(max, incoming.max);
+    }
+
+    public long count() {
+        return count;
+    }
+
+    // Approximate amount at quantile q (0..1); zero when nothing has been added
+    public BigDecimal quantile(double q) {
+        if (count == 0) return BigDecimal.ZERO.setScale(2);
+        compress();
+        return BigDecimal.valueOf(Math.round(quantileCents(Math.max(0, Math.min(1, q)))), 2);
+    }
+
+    private double quantileCents(double q) {
+        if (centroids == 1) return means[0];
+        double target = q * count;
+
+        // Between min and the first centroid's center
+        double center = weights[0] / 2.0;
+        if (target < center) return min + (means[0] - min) * (target / center);
+
+        for (int i = 0; i < centroids - 1; i++) {
+            double next = center + (weights[i] + weights[i + 1]) / 2.0;
+            if (target <= next) return means[i] + (means[i + 1] - means[i]) * ((target - center) / (next - center));
+            center = next;
+        }
+
+        // Between the last centroid's center and max
+        double tail = count - center;
+        return tail <= 0 ? max : means[centroids - 1] + (max - means[centroids - 1]) * ((target - center) / tail);
+    }
+
+    public SpendingDigest copy() {
+        compress();
+        SpendingDigest copy = new SpendingDigest();
+        copy.means = Arrays.copyOf(means, centroids);
+        copy.weights = Arrays.copyOf(weights, centroids);
+        copy.centroids = centroids;
+        copy.count = count;
+        copy.min = min;
+        copy.max = max;
+        return copy;
+    }
+
+    public void write(DataOutputStream out) throws IOException {
+        compress();
+        out.writeLong(count);
+        out.writeDouble(min);
+        out.writeDouble(max);
+        out.writeInt(centroids);
+        for (int i = 0; i < centroids; i++) {
+            out.writeDouble(means[i]);
+            out.writeLong(weights[i]);
+        }
+    }
+
+    public static SpendingDigest read(DataInputStream in) throws IOException {
+        SpendingDigest digest = new SpendingDigest();
+        digest.count = in.readLong();
+        digest.min = in.readDouble();
+        digest.max = in.readDouble();
+        digest.centroids = in.readInt();
+        digest.means = new double[digest.centroids];
+        digest.weights = new long[digest.centroids];
+        for (int i = 0; i < digest.centroids; i++) {
+            digest.means[i] = in.readDouble();
+            digest.weights[i] = in.readLong();
+        }
+        return digest;
+    }
+
+    // Folds the buffered amounts into the centroids
+    private void compress() {
+        if (buffered == 0) return;
+        Arrays.sort(buffer, 0, buffered);
+        long[] ones = new long[buffered];
+        Arrays.fill(ones, 1);
+        collapse(means, weights, centroids, buffer, ones, buffered, count);
+        buffered = 0;
+    }
+
+    // Merges two mean-sorted centroid lists and greedily combines neighbours while each stays within
+    // one unit of the scale function
+    private void collapse(double[] m1, long[] w1, int n1, double[] m2, long[] w2, int n2, long total) {
+        double[] mergedMeans = new double[n1 + n2];
+        long[] mergedWeights = new long[n1 + n2];
+        int size = 0;
+
+        int i = 0;
+        int j = 0;
+        long soFar = 0;
+        double limit = total * q(k(0) + 1);
+        double mean = 0;
+        long weight = 0;
+        while (i < n1 || j < n2) {
+            double nextMean;
+            long nextWeight;
+            if (j == n2 || (i < n1 && m1[i] <= m2[j])) {
+                nextMean = m1[i];
+                nextWeight = w1[i++];
+            } else {
+                nextMean = m2[j];
+                nextWeight = w2[j++];
+            }
+
+            if (weight == 0) {
+                mean = nextMean;
+                weight = nextWeight;
+            } else if (soFar + weight + nextWeight <= limit) {
+                weight += nextWeight;
+                mean += (nextMean - mean) * nextWeight / weight;
+            } else {
+                mergedMeans[size] = mean;
+                mergedWeights[size++] = weight;
+                soFar += weight;
+                limit = total * q(k((double) soFar / total) + 1);
+                mean = nextMean;
+                weight = nextWeight;
+            }
+        }
+        if (weight > 0) {
+            mergedMeans[size] = mean;
+            mergedWeights[size++] = weight;
+        }
+
+        means = mergedMeans;
+        weights = mergedWeights;
+        centroids = size;
+    }
+
+    private static double k(double q) {
+        return COMPRESSION / (2 * Math.PI) * Math.asin(2 * q - 1);
+    }
+
+    private static double q(double k) {
+        if (k >= COMPRESSION / 4) return 1;
+        return (Math.sin(k * 2 * Math.PI / COMPRESSION) + 1) / 2;
+    }
+}
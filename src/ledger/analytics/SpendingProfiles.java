@@ -0,0 +1,149 @@
+package ledger.analytics;
+
+import ledger.model.CategoryClassifier;
+import ledger.model.DescriptionDictionary;
+import ledger.storage.TransactionStore;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+// Per-user streaming model of transaction amounts and categories, used to flag unusual transactions
+// as they are recorded. Each transaction updates its owner's record in constant time.
+//
+// Amounts are modelled on a log scale, so spending $5 and $500 is "typical" for the users who do
+// it. Debits and credits each keep an exponentially weighted mean and variance of ln(cents);
+// credits also keep a decayed frequency per category. A transaction is flagged when its amount is
+// more than ledger.anomaly.threshold (default 3.5) deviations above the user's mean, or when it is an
+// expense in a category the user has not spent on recently. Amounts are not judged until a user has
+// MIN_HISTORY transactions of that type, and categories until CATEGORY_HISTORY expenses.
+//
+// Records are fixed-width and off-heap, laid out like AccountTable: debit mean and variance, credit
+// mean and variance (floats), debit and credit counts (unsigned shorts, saturating), then one unsigned
+// short per category holding its frequency as a fraction of 65535.
+// Not thread-safe apart from rebuild, like the ledger that owns it.
+public class SpendingProfiles {
+    private static final double ALPHA = 0.1;           // weight of a new amount in the mean and variance
+    private static final double BETA = 0.01;           // weight of a new expense in the category frequencies
+    private static final double MIN_SIGMA = 0.25;      // amounts within ~28% of the mean are never unusual
+    private static final double RARE_CATEGORY = 0.001;
+    private static final int MIN_HISTORY = 10;
+    private static final int CATEGORY_HISTORY = 100;
+    private static final double THRESHOLD = Double.parseDouble(System.getProperty("ledger.anomaly.threshold", "3.5"));
+
+    private static final int DEBIT_MEAN = 0;
+    private static final int CREDIT_MEAN = 8;
+    private static final int DEBIT_COUNT = 16;
+    private static final int CREDIT_COUNT = 18;
+    private static final int CATEGORIES = 20;
+    private static final int FREQUENCY_SCALE = 0xFFFF;
+
+    private static final int PAGE_BITS = 14;
+    private static final int PAGE_RECORDS = 1 << PAGE_BITS;
+
+    private final int recordBytes;
+    private final int categoryCount;
+    private final int stride;
+    private ByteBuffer[] pages = new ByteBuffer[16];
+    private int pageCount;
+
+    // A ledger shard owning every stride-th userId passes that stride so its records stay dense
+    public SpendingProfiles(int stride) {
+        this.stride = stride;
+        this.categoryCount = CategoryClassifier.count();
+        this.recordBytes = (CATEGORIES + 2 * categoryCount + 7) & ~7;
+    }
+
+    // Why the transaction looks unusual for the user, or null if it does not. Reads the model only.
+    public String check(int userId, boolean debit, long cents, int categoryId) {
+        ByteBuffer page = page(userId, false);
+        if (page == null) return null;
+        int at = offset(userId);
+
+        int count = page.getShort(at + (debit ? DEBIT_COUNT : CREDIT_COUNT)) & 0xFFFF;
+        if (count < MIN_HISTORY) return null;
+        int meanAt = at + (debit ? DEBIT_MEAN : CREDIT_MEAN);
+        double mean = page.getFloat(meanAt);
+        double sigma = Math.max(Math.sqrt(page.getFloat(meanAt + 4)), MIN_SIGMA);
+        if ((Math.log(Math.max(cents, 1)) - mean) / sigma > THRESHOLD) {
+            return String.format("Unusually large %s for this account (typically about $%.2f)",
+                    debit ? "deposit" : "expense", Math.exp(mean) / 100);
+        }
+
+        // Category habits take longer to learn than amounts
+        if (!debit && categoryId != CategoryClassifier.OTHER && count >= CATEGORY_HISTORY) {
+            double frequency = (double) (page.getShort(at + CATEGORIES + 2 * categoryId) & 0xFFFF) / FREQUENCY_SCALE;
+            if (frequency < RARE_CATEGORY) {
+                return "First " + CategoryClassifier.name(categoryId) + " expense on this account in a while";
+            }
+        }
+        return null;
+    }
+
+    public void record(int userId, boolean debit, long cents, int categoryId) {
+        record(page(userId, true), offset(userId), debit, cents, categoryId);
+    }
+
+    private void record(ByteBuffer page, int at, boolean debit, long cents, int categoryId) {
+        int countAt = at + (debit ? DEBIT_COUNT : CREDIT_COUNT);
+        int count = page.getShort(countAt) & 0xFFFF;
+        int meanAt = at + (debit ? DEBIT_MEAN : CREDIT_MEAN);
+
+        // Until a user has 1 / ALPHA transactions this is a plain running mean and variance
+        double x = Math.log(Math.max(cents, 1));
+        double alpha = Math.max(ALPHA, 1.0 / (count + 1));
+        double mean = page.getFloat(meanAt);
+        double diff = x - mean;
+        double increment = alpha * diff;
+        page.putFloat(meanAt, (float) (mean + increment));
+        page.putFloat(meanAt + 4, (float) ((1 - alpha) * (page.getFloat(meanAt + 4) + diff * increment)));
+        page.putShort(countAt, (short) Math.min(count + 1, 0xFFFF));
+
+        if (!debit) {
+            double beta = Math.max(BETA, 1.0 / (count + 1));
+            for (int c = 0; c < categoryCount; c++) {
+                int frequencyAt = at + CATEGORIES + 2 * c;
+                double frequency = (1 - beta) * (page.getShort(frequencyAt) & 0xFFFF) + (c == categoryId ? beta * FREQUENCY_SCALE : 0);
+                page.putShort(frequencyAt, (short) Math.round(frequency));
+            }
+        }
+    }
+
+    // Replays the store in recorded order. Users are split across the common pool's workers, each
+    // scanning the store for its own users, so every user's rows are still applied in order.
+    public void rebuild(TransactionStore store, int maxUserId) {
+        // Workers only write to records on pages that already exist
+        for (int index = 0; index <= (maxUserId / stride) >>> PAGE_BITS; index++) page(index * PAGE_RECORDS * stride, true);
+
+        int workers = ForkJoinPool.commonPool().getParallelism();
+        IntStream.range(0, workers).parallel().forEach(worker ->
+                store.scan((id, userId, debit, cents, descriptionId, epochDay) -> {
+                    if ((userId / stride) % workers != worker) return;
+                    ByteBuffer page = page(userId, false);
+                    if (page != null) {
+                        record(page, offset(userId), debit, cents, DescriptionDictionary.categoryOf(descriptionId));
+                    }
+                }));
+    }
+
+    public long allocatedBytes() { return (long) pageCount * PAGE_RECORDS * recordBytes; }
+
+    private int offset(int userId) {
+        return ((userId / stride) & (PAGE_RECORDS - 1)) * recordBytes;
+    }
+
+    private ByteBuffer page(int userId, boolean create) {
+        int index = (userId / stride) >>> PAGE_BITS;
+        if (index < pages.length && pages[index] != null) return pages[index];
+        if (!create) return null;
+
+        if (index >= pages.length) {
+            ByteBuffer[] larger = new ByteBuffer[Math.max(pages.length * 2, index + 1)];
+            System.arraycopy(pages, 0, larger, 0, pages.length);
+            pages = larger;
+        }
+        pages[index] = ByteBuffer.allocateDirect(PAGE_RECORDS * recordBytes);
+        pageCount++;
+        return pages[index];
+    }
+}
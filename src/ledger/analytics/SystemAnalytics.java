@@ -0,0 +1,424 @@
+package ledger.analytics;
+
+import ledger.model.AccountTable;
+import ledger.model.CategoryClassifier;
+import ledger.model.DescriptionDictionary;
+import ledger.model.Loan;
+import ledger.model.Transaction;
+import ledger.model.User;
+import ledger.storage.TransactionArchive;
+import ledger.storage.TransactionStore;
+
+import java.io.*;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+public class SystemAnalytics {
+    private static final int GRAPH_WIDTH = 50;
+    private static final String MONTH_ROW = "%s |%-" + GRAPH_WIDTH + "s| $%.2f%n";
+    private static final int TOP_CATEGORIES = 5;
+    // Rows per fork-join leaf; below this splitting costs more than it saves
+    private static final int SPLIT_THRESHOLD = 1 << 15;
+
+    // Transactions flattened into primitive columns so the aggregation never touches BigDecimal
+    public static class Columns {
+        final int size;
+        final long[] amountCents;
+        final int[] monthIndex;     // year * 12 + (month - 1)
+        final boolean[] credit;
+        final int[] categoryId;
+        final int minMonth;
+        final int monthCount;
+
+        private Columns(int size, long[] amountCents, int[] monthIndex, boolean[] credit,
+                        int[] categoryId, int minMonth, int monthCount) {
+            this.size = size;
+            this.amountCents = amountCents;
+            this.monthIndex = monthIndex;
+            this.credit = credit;
+            this.categoryId = categoryId;
+            this.minMonth = minMonth;
+            this.monthCount = monthCount;
+        }
+
+        public static Columns of(List<Transaction> transactions) {
+            int size = transactions.size();
+            long[] amountCents = new long[size];
+            int[] monthIndex = new int[size];
+            boolean[] credit = new boolean[size];
+            int[] categoryId = new int[size];
+            int minMonth = Integer.MAX_VALUE;
+            int maxMonth = Integer.MIN_VALUE;
+
+            for (int i = 0; i < size; i++) {
+                Transaction t = transactions.get(i);
+                amountCents[i] = toCents(t.getAmount());
+                LocalDate date = t.getDate();
+                int month = date.getYear() * 12 + date.getMonthValue() - 1;
+                monthIndex[i] = month;
+                minMonth = Math.min(minMonth, month);
+                maxMonth = Math.max(maxMonth, month);
+                credit[i] = t.getType().equals("credit");
+                categoryId[i] = t.getCategoryId();
+            }
+
+            if (size == 0) {
+                minMonth = 0;
+                maxMonth = -1;
+            }
+            return new Columns(size, amountCents, monthIndex, credit, categoryId,
+                    minMonth, maxMonth - minMonth + 1);
+        }
+
+        // Straight from the store's decoded blocks, without building Transaction objects
+        public static Columns of(TransactionStore transactions) {
+            int size = transactions.size();
+            long[] amountCents = new long[size];
+            int[] monthIndex = new int[size];
+            boolean[] credit = new boolean[size];
+            int[] categoryId = new int[size];
+            int[] range = {Integer.MAX_VALUE, Integer.MIN_VALUE};
+            // Rows arrive mostly in date order, so the last day's month is usually the answer
+            int[] lastDay = {Integer.MIN_VALUE, 0};
+            int[] position = {0};
+
+            transactions.scanBlocks(rows -> {
+                int offset = position[0];
+                for (int r = 0; r < rows.size; r++) {
+                    int i = offset + r;
+                    amountCents[i] = rows.cents[r];
+                    int day = rows.epochDays[r];
+                    if (day != lastDay[0]) {
+                        LocalDate date = LocalDate.ofEpochDay(day);
+                        lastDay[0] = day;
+                        lastDay[1] = date.getYear() * 12 + date.getMonthValue() - 1;
+                    }
+                    int month = lastDay[1];
+                    monthIndex[i] = month;
+                    range[0] = Math.min(range[0], month);
+                    range[1] = Math.max(range[1], month);
+                    credit[i] = !rows.debit[r];
+                    categoryId[i] = DescriptionDictionary.categoryOf(rows.descriptionIds[r]);
+                }
+                position[0] = offset + rows.size;
+            });
+
+            if (size == 0) {
+                range[0] = 0;
+                range[1] = -1;
+            }
+            return new Columns(size, amountCents, monthIndex, credit, categoryId,
+                    range[0], range[1] - range[0] + 1);
+        }
+    }
+
+    // Per-month and per-category spending totals in cents, with row counts
+    private static class Totals {
+        final long[] monthSpend;
+        final long[] categorySpend;
+        final int[] monthRows;
+        final int[] categoryRows;
+        long debitCents;
+        long creditCents;
+
+        Totals(int months, int categories) {
+            monthSpend = new long[months];
+            categorySpend = new long[categories];
+            monthRows = new int[months];
+            categoryRows = new int[categories];
+        }
+
+        void merge(Totals other) {
+            for (int i = 0; i < monthSpend.length; i++) {
+                monthSpend[i] += other.monthSpend[i];
+                monthRows[i] += other.monthRows[i];
+            }
+            for (int i = 0; i < categorySpend.length; i++) {
+                categorySpend[i] += other.categorySpend[i];
+                categoryRows[i] += other.categoryRows[i];
+            }
+            debitCents += other.debitCents;
+            creditCents += other.creditCents;
+        }
+    }
+
+    private static class AggregateTask extends RecursiveTask<Totals> {
+        private static final long serialVersionUID = 1L;
+
+        private final Columns columns;
+        private final int from;
+        private final int to;
+
+        AggregateTask(Columns columns, int from, int to) {
+            this.columns = columns;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Totals compute() {
+            if (to - from <= SPLIT_THRESHOLD) {
+                Totals totals = new Totals(columns.monthCount, CategoryClassifier.count());
+                for (int i = from; i < to; i++) {
+                    long cents = columns.amountCents[i];
+                    if (!columns.credit[i]) {
+                        totals.debitCents += cents;
+                        continue;
+                    }
+                    totals.creditCents += cents;
+                    int category = columns.categoryId[i];
+                    if (Transaction.isExpense(false, category)) {
+                        int month = columns.monthIndex[i] - columns.minMonth;
+                        totals.monthSpend[month] += cents;
+                        totals.monthRows[month]++;
+                        totals.categorySpend[category] += cents;
+                        totals.categoryRows[category]++;
+                    }
+                }
+                return totals;
+            }
+
+            int mid = (from + to) >>> 1;
+            AggregateTask left = new AggregateTask(columns, from, mid);
+            left.fork();
+            Totals right = new AggregateTask(columns, mid, to).compute();
+            Totals result = left.join();
+            result.merge(right);
+            return result;
+        }
+    }
+
+    public static class Report {
+        private final Map<String, BigDecimal> monthlySpending;
+        private final Map<String, BigDecimal> categorySpending;
+        private final BigDecimal totalDebit;
+        private final BigDecimal totalCredit;
+        private final int activeLoans;
+        private final BigDecimal loanPrincipal;
+        private final BigDecimal loanOutstanding;
+        private final int savingsUsers;
+        private final BigDecimal savingsTotal;
+        private final SpendingDigest spending;
+
+        public Report(Map<String, BigDecimal> monthlySpending, Map<String, BigDecimal> categorySpending,
+               BigDecimal totalDebit, BigDecimal totalCredit, int activeLoans, BigDecimal loanPrincipal,
+               BigDecimal loanOutstanding, int savingsUsers, BigDecimal savingsTotal, SpendingDigest spending) {
+            this.monthlySpending = monthlySpending;
+            this.categorySpending = categorySpending;
+            this.totalDebit = totalDebit;
+            this.totalCredit = totalCredit;
+            this.activeLoans = activeLoans;
+            this.loanPrincipal = loanPrincipal;
+            this.loanOutstanding = loanOutstanding;
+            this.savingsUsers = savingsUsers;
+            this.savingsTotal = savingsTotal;
+            this.spending = spending;
+        }
+
+        // Getters
+        public Map<String, BigDecimal> getMonthlySpending() { return monthlySpending; }
+        public Map<String, BigDecimal> getCategorySpending() { return categorySpending; }
+        public BigDecimal getTotalDebit() { return totalDebit; }
+        public BigDecimal getTotalCredit() { return totalCredit; }
+        public int getActiveLoans() { return activeLoans; }
+        public BigDecimal getLoanPrincipal() { return loanPrincipal; }
+        public BigDecimal getLoanOutstanding() { return loanOutstanding; }
+        public int getSavingsUsers() { return savingsUsers; }
+        public BigDecimal getSavingsTotal() { return savingsTotal; }
+        public SpendingDigest getSpending() { return spending; }
+    }
+
+    public static Report analyze(List<Transaction> transactions, List<Loan> loans, Collection<User> users) {
+        return analyze(Columns.of(transactions), loans, users);
+    }
+
+    public static Report analyze(List<Transaction> transactions, List<Loan> loans, AccountTable accounts) {
+        Columns columns = Columns.of(transactions);
+        long[] savings = accounts.savingsTotals();
+        return analyze(columns, loans, (int) savings[0], savings[1], spending(columns));
+    }
+
+    // For callers that total savings themselves, e.g. a replica from the savings.csv rows it holds
+    public static Report analyze(List<Transaction> transactions, List<Loan> loans, int savingsUsers, long savingsCents) {
+        Columns columns = Columns.of(transactions);
+        return analyze(columns, loans, savingsUsers, savingsCents, spending(columns));
+    }
+
+    // spending is the digest the ledger keeps as transactions are recorded; the report gets a copy
+    public static Report analyze(Columns columns, List<Loan> loans, AccountTable accounts, SpendingDigest spending) {
+        long[] savings = accounts.savingsTotals();
+        return analyze(columns, loans, (int) savings[0], savings[1], spending.copy());
+    }
+
+    public static Report analyze(Columns columns, List<Loan> loans, Collection<User> users) {
+        int savingsUsers = 0;
+        long savingsCents = 0;
+        for (User user : users) {
+            if (user.isSavingsActive()) savingsUsers++;
+            savingsCents += toCents(user.getSavings());
+        }
+        return analyze(columns, loans, savingsUsers, savingsCents, spending(columns));
+    }
+
+    // Expense sizes for callers that do not keep a digest of their own
+    private static SpendingDigest spending(Columns columns) {
+        SpendingDigest spending = new SpendingDigest();
+        for (int i = 0; i < columns.size; i++) {
+            if (Transaction.isExpense(!columns.credit[i], columns.categoryId[i])) spending.add(columns.amountCents[i]);
+        }
+        return spending;
+    }
+
+    // Savings totals and the expense digest as the caller keeps them; the report takes spending over
+    public static Report analyze(Columns columns, List<Loan> loans, int savingsUsers, long savingsCents,
+                                 SpendingDigest spending) {
+        Totals totals = ForkJoinPool.commonPool().invoke(new AggregateTask(columns, 0, columns.size));
+
+        // Keys and values match DataVisualization.monthlySpending / categorySpending exactly
+        Map<String, BigDecimal> monthlySpending = new TreeMap<>();
+        for (int i = 0; i < totals.monthSpend.length; i++) {
+            if (totals.monthRows[i] > 0) {
+                int month = columns.minMonth + i;
+                monthlySpending.put(month / 12 + "-" + String.format("%02d", month % 12 + 1),
+                        BigDecimal.valueOf(totals.monthSpend[i], 2));
+            }
+        }
+
+        Map<String, BigDecimal> categorySpending = new HashMap<>();
+        for (int i = 0; i < totals.categorySpend.length; i++) {
+            if (totals.categoryRows[i] > 0) {
+                categorySpending.put(CategoryClassifier.name(i), BigDecimal.valueOf(totals.categorySpend[i], 2));
+            }
+        }
+
+        // Loan book exposure
+        int activeLoans = 0;
+        long principalCents = 0;
+        long outstandingCents = 0;
+        for (Loan loan : loans) {
+            if (loan.getStatus().equals("active")) {
+                activeLoans++;
+                principalCents += toCents(loan.getPrincipalAmount());
+                outstandingCents += toCents(loan.getOutstandingBalance());
+            }
+        }
+
+        return new Report(monthlySpending, categorySpending,
+                BigDecimal.valueOf(totals.debitCents, 2), BigDecimal.valueOf(totals.creditCents, 2),
+                activeLoans, BigDecimal.valueOf(principalCents, 2), BigDecimal.valueOf(outstandingCents, 2),
+                savingsUsers, BigDecimal.valueOf(savingsCents, 2), spending);
+    }
+
+    // Combines reports from ledger shards; every figure is a sum, so merging is exact apart from the
+    // percentile digest, which stays approximate
+    public static Report merge(List<Report> reports) {
+        Map<String, BigDecimal> monthlySpending = new TreeMap<>();
+        Map<String, BigDecimal> categorySpending = new HashMap<>();
+        BigDecimal totalDebit = BigDecimal.ZERO.setScale(2);
+        BigDecimal totalCredit = BigDecimal.ZERO.setScale(2);
+        BigDecimal loanPrincipal = BigDecimal.ZERO.setScale(2);
+        BigDecimal loanOutstanding = BigDecimal.ZERO.setScale(2);
+        BigDecimal savingsTotal = BigDecimal.ZERO.setScale(2);
+        int activeLoans = 0;
+        int savingsUsers = 0;
+        SpendingDigest spending = new SpendingDigest();
+        for (Report report : reports) {
+            report.monthlySpending.forEach((month, amount) -> monthlySpending.merge(month, amount, BigDecimal::add));
+            report.categorySpending.forEach((category, amount) -> categorySpending.merge(category, amount, BigDecimal::add));
+            totalDebit = totalDebit.add(report.totalDebit);
+            totalCredit = totalCredit.add(report.totalCredit);
+            activeLoans += report.activeLoans;
+            loanPrincipal = loanPrincipal.add(report.loanPrincipal);
+            loanOutstanding = loanOutstanding.add(report.loanOutstanding);
+            savingsUsers += report.savingsUsers;
+            savingsTotal = savingsTotal.add(report.savingsTotal);
+            spending.merge(report.spending);
+        }
+        return new Report(monthlySpending, categorySpending, totalDebit, totalCredit, activeLoans,
+                loanPrincipal, loanOutstanding, savingsUsers, savingsTotal, spending);
+    }
+
+    // TransactionArchive.Summarizer for archive segments: the month's totals, spending breakdowns and
+    // expense digest, so reports cover archived rows without reading them back
+    public static void writeSummary(List<Transaction> rows, DataOutputStream out) throws IOException {
+        Report summary = analyze(rows, Collections.emptyList(), 0, 0);
+        out.writeLong(toCents(summary.totalDebit));
+        out.writeLong(toCents(summary.totalCredit));
+        writeAmounts(out, summary.monthlySpending);
+        writeAmounts(out, summary.categorySpending);
+        summary.spending.write(out);
+    }
+
+    // Every segment summary in the archive merged into one report
+    public static Report archiveSummary(TransactionArchive archive) throws IOException {
+        List<Report> summaries = new ArrayList<>();
+        for (byte[] summary : archive.summaries()) {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(summary));
+            BigDecimal debit = BigDecimal.valueOf(in.readLong(), 2);
+            BigDecimal credit = BigDecimal.valueOf(in.readLong(), 2);
+            Map<String, BigDecimal> monthly = readAmounts(in, new TreeMap<>());
+            Map<String, BigDecimal> category = readAmounts(in, new HashMap<>());
+            summaries.add(new Report(monthly, category, debit, credit, 0, BigDecimal.ZERO, BigDecimal.ZERO,
+                    0, BigDecimal.ZERO, SpendingDigest.read(in)));
+        }
+        return merge(summaries);
+    }
+
+    private static void writeAmounts(DataOutputStream out, Map<String, BigDecimal> amounts) throws IOException {
+        out.writeInt(amounts.size());
+        for (Map.Entry<String, BigDecimal> amount : amounts.entrySet()) {
+            out.writeUTF(amount.getKey());
+            out.writeLong(toCents(amount.getValue()));
+        }
+    }
+
+    private static Map<String, BigDecimal> readAmounts(DataInputStream in, Map<String, BigDecimal> amounts)
+            throws IOException {
+        int count = in.readInt();
+        for (int i = 0; i < count; i++) amounts.put(in.readUTF(), BigDecimal.valueOf(in.readLong(), 2));
+        return amounts;
+    }
+
+    public static void showSystemReport(Report report) {
+        System.out.println("\n=== System-wide Report ===");
+        System.out.printf("Total Debit: $%.2f | Total Credit: $%.2f%n",
+                report.getTotalDebit(), report.getTotalCredit());
+
+        System.out.println("\n--- Spending by Month ---");
+        BigDecimal maxSpending = report.getMonthlySpending().values().stream()
+                .max(BigDecimal::compareTo)
+                .filter(max -> max.signum() > 0)
+                .orElse(BigDecimal.ONE);
+        report.getMonthlySpending().forEach((month, amount) -> {
+            int barLength = amount
+                    .multiply(BigDecimal.valueOf(GRAPH_WIDTH))
+                    .divide(maxSpending, 0, RoundingMode.DOWN)
+                    .intValue();
+            System.out.printf(MONTH_ROW, month, "=".repeat(barLength), amount);
+        });
+
+        System.out.println("\n--- Top Categories ---");
+        report.getCategorySpending().entrySet().stream()
+                .sorted((e1, e2) -> e2.getValue().compareTo(e1.getValue()))
+                .limit(TOP_CATEGORIES)
+                .forEach(entry -> System.out.printf("%-15s $%.2f%n", entry.getKey(), entry.getValue()));
+
+        DataVisualization.showExpensePercentiles(report.getSpending());
+
+        System.out.println("\n--- Loan Book ---");
+        System.out.printf("Active loans: %d | Principal: $%.2f | Outstanding: $%.2f%n",
+                report.getActiveLoans(), report.getLoanPrincipal(), report.getLoanOutstanding());
+
+        System.out.println("\n--- Savings ---");
+        System.out.printf("Users with savings active: %d | Total savings: $%.2f%n",
+                report.getSavingsUsers(), report.getSavingsTotal());
+    }
+
+    static long toCents(BigDecimal amount) {
+        return amount.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+}
@@ -0,0 +1,134 @@
+package ledger.metrics;
+
+import java.io.*;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import javax.management.ObjectName;
+
+// Process-wide counters, gauges and latency histograms for the ledger. Instruments are created once
+// and held in static fields by the code that updates them, so the hot path never touches the maps.
+//
+// Export is opt-in through system properties:
+//   -Dledger.metrics.file=metrics.txt  rewrite the file with a dump every ledger.metrics.interval seconds (default 60)
+//   -Dledger.metrics.jmx=true          register the MetricsMXBean as ledger:type=Metrics
+public class Metrics {
+    private static final Map<String, LongAdder> counters = new ConcurrentSkipListMap<>();
+    private static final Map<String, LongSupplier> gauges = new ConcurrentSkipListMap<>();
+    private static final Map<String, LatencyHistogram> histograms = new ConcurrentSkipListMap<>();
+    private static ScheduledExecutorService exporter;
+
+    public static LongAdder counter(String name) {
+        return counters.computeIfAbsent(name, k -> new LongAdder());
+    }
+
+    public static LatencyHistogram histogram(String name) {
+        return histograms.computeIfAbsent(name, LatencyHistogram::new);
+    }
+
+    // Gauges are read only when metrics are dumped; registering a name again replaces the supplier
+    public static void gauge(String name, LongSupplier value) {
+        gauges.put(name, value);
+    }
+
+    public static void dump(PrintStream out) {
+        out.println("== Metrics " + LocalDateTime.now().withNano(0) + " ==");
+        for (Map.Entry<String, LongAdder> counter : counters.entrySet()) {
+            out.printf("counter   %-28s %d%n", counter.getKey(), counter.getValue().sum());
+        }
+        for (Map.Entry<String, LongSupplier> gauge : gauges.entrySet()) {
+            out.printf("gauge     %-28s %d%n", gauge.getKey(), gauge.getValue().getAsLong());
+        }
+        for (LatencyHistogram histogram : histograms.values()) {
+            if (histogram.getCount() == 0) continue;
+            out.printf("latency   %-28s %s%n", histogram.getName(), histogram.summary());
+        }
+    }
+
+    public static String dump() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        dump(new PrintStream(bytes, true, StandardCharsets.UTF_8));
+        return bytes.toString(StandardCharsets.UTF_8);
+    }
+
+    public static void writeTo(Path file) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.writeString(temp, dump());
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    public static synchronized void startFileExport(Path file, long intervalSeconds) {
+        if (exporter != null) return;
+        exporter = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "ledger-metrics-export");
+            thread.setDaemon(true);
+            return thread;
+        });
+        exporter.scheduleAtFixedRate(() -> {
+            try {
+                writeTo(file);
+            } catch (IOException e) {
+                counter("metrics.export.errors").increment();
+            }
+        }, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+    }
+
+    public static void registerMBean() {
+        try {
+            ObjectName name = new ObjectName("ledger:type=Metrics");
+            if (!ManagementFactory.getPlatformMBeanServer().isRegistered(name)) {
+                ManagementFactory.getPlatformMBeanServer().registerMBean(new MBean(), name);
+            }
+        } catch (Exception e) {
+            System.out.println("Error registering metrics MBean: " + e.getMessage());
+        }
+    }
+
+    public static void exportFromProperties() {
+        String file = System.getProperty("ledger.metrics.file");
+        if (file != null) {
+            startFileExport(Paths.get(file), Long.getLong("ledger.metrics.interval", 60));
+        }
+        if (Boolean.getBoolean("ledger.metrics.jmx")) {
+            registerMBean();
+        }
+    }
+
+    private static class MBean implements MetricsMXBean {
+        @Override
+        public Map<String, Long> getCounters() {
+            Map<String, Long> values = new TreeMap<>();
+            counters.forEach((name, counter) -> values.put(name, counter.sum()));
+            return values;
+        }
+
+        @Override
+        public Map<String, Long> getGauges() {
+            Map<String, Long> values = new TreeMap<>();
+            gauges.forEach((name, gauge) -> values.put(name, gauge.getAsLong()));
+            return values;
+        }
+
+        @Override
+        public Map<String, String> getLatencies() {
+            Map<String, String> values = new TreeMap<>();
+            histograms.forEach((name, histogram) -> values.put(name, histogram.summary()));
+            return values;
+        }
+
+        @Override
+        public String dump() {
+            return Metrics.dump();
+        }
+
+        @Override
+        public void resetLatencies() {
+            histograms.values().forEach(LatencyHistogram::reset);
+        }
+    }
+}
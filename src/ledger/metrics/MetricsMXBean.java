@@ -0,0 +1,17 @@
+package ledger.metrics;
+
+import java.util.Map;
+
+// JMX view of Metrics, registered as "ledger:type=Metrics"
+public interface MetricsMXBean {
+    Map<String, Long> getCounters();
+
+    Map<String, Long> getGauges();
+
+    // Latency summaries keyed by histogram name
+    Map<String, String> getLatencies();
+
+    String dump();
+
+    void resetLatencies();
+}
@@ -0,0 +1,160 @@
+package ledger.model;
+
+import java.nio.ByteBuffer;
+import java.time.LocalDate;
+import java.util.function.IntConsumer;
+
+// Mutable per-user account state held off-heap in fixed-width records indexed by userId, so a large
+// user base costs 32 bytes of direct memory per account and nothing for the GC to trace.
+// Every user with transactions or savings has a record from load onwards, not only those who log in.
+// User objects are views over a record; the record outlives any User that reads it.
+//
+// Record layout: balance, savings and loan in cents (longs), last login as an epoch day, then
+// flags: bit 8 marks the record as in use, bit 9 savings active, bits 0-7 the savings percentage.
+// A ledger shard owning every stride-th userId passes that stride so its records stay dense, and
+// its shard number so userIds can be recovered from record positions.
+// Not thread-safe, like the ledger that owns it.
+public class AccountTable {
+    private static final int RECORD_BYTES = 32;
+    private static final int PAGE_BITS = 16;
+    private static final int PAGE_RECORDS = 1 << PAGE_BITS;
+
+    private static final int BALANCE = 0;
+    private static final int SAVINGS = 8;
+    private static final int LOAN = 16;
+    private static final int LAST_LOGIN = 24;
+    private static final int FLAGS = 28;
+
+    private static final int IN_USE = 1 << 8;
+    private static final int SAVINGS_ACTIVE = 1 << 9;
+    private static final int PERCENTAGE_MASK = 0xFF;
+    private static final int NO_DATE = Integer.MIN_VALUE;
+
+    private final int stride;
+    private final int shard;
+    private ByteBuffer[] pages = new ByteBuffer[16];
+    private int pageCount;
+    private int accounts;
+    private int maxUserId;
+
+    public AccountTable() {
+        this(1, 0);
+    }
+
+    // Table for the userIds u with (u - 1) % stride == shard
+    public AccountTable(int stride, int shard) {
+        this.stride = stride;
+        this.shard = shard;
+    }
+
+    // Sets up a zeroed record for userId, with no last login, unless it already holds an account
+    public void open(int userId) {
+        ByteBuffer page = page(userId, true);
+        int at = offset(userId);
+        if ((page.getInt(at + FLAGS) & IN_USE) != 0) return;
+        page.putLong(at + BALANCE, 0);
+        page.putLong(at + SAVINGS, 0);
+        page.putLong(at + LOAN, 0);
+        page.putInt(at + LAST_LOGIN, NO_DATE);
+        page.putInt(at + FLAGS, IN_USE);
+        accounts++;
+        maxUserId = Math.max(maxUserId, userId);
+    }
+
+    public long balanceCents(int userId) { return page(userId, false).getLong(offset(userId) + BALANCE); }
+    public long savingsCents(int userId) { return page(userId, false).getLong(offset(userId) + SAVINGS); }
+    public long loanCents(int userId) { return page(userId, false).getLong(offset(userId) + LOAN); }
+
+    public void setBalanceCents(int userId, long cents) { page(userId, false).putLong(offset(userId) + BALANCE, cents); }
+    public void setSavingsCents(int userId, long cents) { page(userId, false).putLong(offset(userId) + SAVINGS, cents); }
+    public void setLoanCents(int userId, long cents) { page(userId, false).putLong(offset(userId) + LOAN, cents); }
+
+    public LocalDate lastLoginDate(int userId) {
+        int day = page(userId, false).getInt(offset(userId) + LAST_LOGIN);
+        return day == NO_DATE ? null : LocalDate.ofEpochDay(day);
+    }
+
+    public void setLastLoginDate(int userId, LocalDate date) {
+        page(userId, false).putInt(offset(userId) + LAST_LOGIN, date == null ? NO_DATE : (int) date.toEpochDay());
+    }
+
+    public boolean isSavingsActive(int userId) { return (flags(userId) & SAVINGS_ACTIVE) != 0; }
+    public int savingsPercentage(int userId) { return flags(userId) & PERCENTAGE_MASK; }
+
+    public void setSavingsActive(int userId, boolean active) {
+        int flags = flags(userId);
+        setFlags(userId, active ? flags | SAVINGS_ACTIVE : flags & ~SAVINGS_ACTIVE);
+    }
+
+    public void setSavingsPercentage(int userId, int percentage) {
+        setFlags(userId, (flags(userId) & ~PERCENTAGE_MASK) | (percentage & PERCENTAGE_MASK));
+    }
+
+    public int size() { return accounts; }
+
+    // Highest userId with an open record, or 0 if there is none
+    public int maxUserId() { return maxUserId; }
+
+    public long allocatedBytes() { return (long) pageCount * PAGE_RECORDS * RECORD_BYTES; }
+
+    // Savings totals over every record: {accounts with savings active, savings in cents}
+    public long[] savingsTotals() {
+        long activeUsers = 0;
+        long cents = 0;
+        for (int p = 0; p < pages.length; p++) {
+            ByteBuffer page = pages[p];
+            if (page == null) continue;
+            for (int at = 0; at < PAGE_RECORDS * RECORD_BYTES; at += RECORD_BYTES) {
+                int flags = page.getInt(at + FLAGS);
+                if ((flags & IN_USE) == 0) continue;
+                if ((flags & SAVINGS_ACTIVE) != 0) activeUsers++;
+                cents += page.getLong(at + SAVINGS);
+            }
+        }
+        return new long[]{activeUsers, cents};
+    }
+
+    public boolean isOpen(int userId) {
+        int index = slot(userId) >>> PAGE_BITS;
+        return index < pages.length && pages[index] != null && (flags(userId) & IN_USE) != 0;
+    }
+
+    // Passes the userId of every open record to action, in userId order
+    public void forEachAccount(IntConsumer action) {
+        for (int p = 0; p < pages.length; p++) {
+            ByteBuffer page = pages[p];
+            if (page == null) continue;
+            for (int record = 0; record < PAGE_RECORDS; record++) {
+                if ((page.getInt(record * RECORD_BYTES + FLAGS) & IN_USE) == 0) continue;
+                action.accept(((p << PAGE_BITS) + record) * stride + shard + 1);
+            }
+        }
+    }
+
+    private int flags(int userId) { return page(userId, false).getInt(offset(userId) + FLAGS); }
+    private void setFlags(int userId, int flags) { page(userId, false).putInt(offset(userId) + FLAGS, flags); }
+
+    // Position of userId's record among this table's records
+    private int slot(int userId) {
+        return (userId - 1) / stride;
+    }
+
+    private int offset(int userId) {
+        return (slot(userId) & (PAGE_RECORDS - 1)) * RECORD_BYTES;
+    }
+
+    private ByteBuffer page(int userId, boolean create) {
+        int index = slot(userId) >>> PAGE_BITS;
+        if (index < pages.length && pages[index] != null) return pages[index];
+        if (!create) throw new IllegalArgumentException("No account for user " + userId);
+
+        if (index >= pages.length) {
+            ByteBuffer[] larger = new ByteBuffer[Math.max(pages.length * 2, index + 1)];
+            System.arraycopy(pages, 0, larger, 0, pages.length);
+            pages = larger;
+        }
+        pages[index] = ByteBuffer.allocateDirect(PAGE_RECORDS * RECORD_BYTES);
+        pageCount++;
+        return pages[index];
+    }
+}
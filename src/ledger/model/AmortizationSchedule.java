@@ -0,0 +1,154 @@
+package ledger.model;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.List;
+
+// Month-by-month repayment plan for a fixed-rate loan with equal monthly installments.
+// All amounts are kept in cents; row i is the installment due i + 1 months after the loan starts.
+public class AmortizationSchedule {
+    private static final BigDecimal MONTHS_TIMES_PERCENT = BigDecimal.valueOf(1200);
+
+    private final long[] payment;
+    private final long[] interest;
+    private final long[] principal;
+    private final long[] balance;            // principal still owed after the installment
+    private final long[] cumulativePayment;  // total paid once the installment is settled
+    private long paidCents;
+    private int nextInstallment;
+
+    private AmortizationSchedule(int months) {
+        payment = new long[months];
+        interest = new long[months];
+        principal = new long[months];
+        balance = new long[months];
+        cumulativePayment = new long[months];
+    }
+
+    public static AmortizationSchedule of(BigDecimal principalAmount, double interestRate, int repaymentPeriod) {
+        AmortizationSchedule schedule = new AmortizationSchedule(repaymentPeriod);
+        long principalCents = principalAmount.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+        BigDecimal annualRate = BigDecimal.valueOf(interestRate);
+        BigDecimal monthlyRate = annualRate.divide(MONTHS_TIMES_PERCENT, MathContext.DECIMAL64);
+
+        // Level installment: P * r / (1 - (1 + r)^-n)
+        long level;
+        if (monthlyRate.signum() == 0) {
+            level = BigDecimal.valueOf(principalCents)
+                    .divide(BigDecimal.valueOf(repaymentPeriod), 0, RoundingMode.HALF_UP).longValueExact();
+        } else {
+            BigDecimal growth = BigDecimal.ONE.add(monthlyRate).pow(repaymentPeriod, MathContext.DECIMAL64);
+            BigDecimal discount = BigDecimal.ONE.subtract(BigDecimal.ONE.divide(growth, MathContext.DECIMAL64));
+            level = BigDecimal.valueOf(principalCents)
+                    .multiply(monthlyRate)
+                    .divide(discount, 0, RoundingMode.HALF_UP).longValueExact();
+        }
+
+        long remaining = principalCents;
+        long cumulative = 0;
+        for (int i = 0; i < repaymentPeriod; i++) {
+            long interestCents = BigDecimal.valueOf(remaining)
+                    .multiply(annualRate)
+                    .divide(MONTHS_TIMES_PERCENT, 0, RoundingMode.HALF_UP).longValueExact();
+            // The final installment absorbs rounding so the loan closes at exactly zero
+            long principalPart = i == repaymentPeriod - 1
+                    ? remaining
+                    : Math.min(remaining, Math.max(0, level - interestCents));
+            remaining -= principalPart;
+            cumulative += principalPart + interestCents;
+
+            schedule.payment[i] = principalPart + interestCents;
+            schedule.interest[i] = interestCents;
+            schedule.principal[i] = principalPart;
+            schedule.balance[i] = remaining;
+            schedule.cumulativePayment[i] = cumulative;
+        }
+        return schedule;
+    }
+
+    // Equal installments of totalCents with the interest spread evenly across them, as loans were
+    // charged before amortization: flat interest on the whole principal for the whole period
+    public static AmortizationSchedule flat(BigDecimal principalAmount, long totalCents, int repaymentPeriod) {
+        AmortizationSchedule schedule = new AmortizationSchedule(repaymentPeriod);
+        long principalCents = principalAmount.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+
+        // Running totals are rounded rather than each installment, so the last one closes exactly
+        long paidPrincipal = 0;
+        long cumulative = 0;
+        for (int i = 0; i < repaymentPeriod; i++) {
+            long nextCumulative = Math.round((double) totalCents * (i + 1) / repaymentPeriod);
+            long nextPrincipal = Math.round((double) principalCents * (i + 1) / repaymentPeriod);
+
+            schedule.payment[i] = nextCumulative - cumulative;
+            schedule.principal[i] = nextPrincipal - paidPrincipal;
+            schedule.interest[i] = schedule.payment[i] - schedule.principal[i];
+            schedule.balance[i] = principalCents - nextPrincipal;
+            schedule.cumulativePayment[i] = nextCumulative;
+            cumulative = nextCumulative;
+            paidPrincipal = nextPrincipal;
+        }
+        return schedule;
+    }
+
+    // What the loan cost under flat interest: principal * (1 + rate * months / 1200)
+    public static long flatTotalCents(BigDecimal principalAmount, double interestRate, int repaymentPeriod) {
+        BigDecimal principal = principalAmount.setScale(2, RoundingMode.HALF_UP);
+        return principal.add(principal
+                        .multiply(BigDecimal.valueOf(interestRate))
+                        .multiply(BigDecimal.valueOf(repaymentPeriod))
+                        .divide(MONTHS_TIMES_PERCENT, 2, RoundingMode.HALF_UP))
+                .unscaledValue().longValueExact();
+    }
+
+    // Builds the schedules for the whole loan book in parallel and attaches them to their loans
+    public static void buildAll(List<Loan> loans) {
+        loans.parallelStream().forEach(Loan::getSchedule);
+    }
+
+    // Advances the schedule by a repayment; only the installments it settles are visited
+    public synchronized void applyPayment(BigDecimal amount) {
+        paidCents += amount.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+        while (nextInstallment < payment.length && cumulativePayment[nextInstallment] <= paidCents) {
+            nextInstallment++;
+        }
+    }
+
+    public int getInstallments() { return payment.length; }
+    public BigDecimal getPayment(int month) { return BigDecimal.valueOf(payment[month], 2); }
+    public BigDecimal getInterest(int month) { return BigDecimal.valueOf(interest[month], 2); }
+    public BigDecimal getPrincipal(int month) { return BigDecimal.valueOf(principal[month], 2); }
+    public BigDecimal getBalance(int month) { return BigDecimal.valueOf(balance[month], 2); }
+
+    public BigDecimal getMonthlyPayment() {
+        return BigDecimal.valueOf(payment.length == 0 ? 0 : payment[0], 2);
+    }
+
+    public BigDecimal getTotalRepayment() {
+        return BigDecimal.valueOf(payment.length == 0 ? 0 : cumulativePayment[payment.length - 1], 2);
+    }
+
+    public BigDecimal getTotalInterest() {
+        long total = 0;
+        for (long i : interest) total += i;
+        return BigDecimal.valueOf(total, 2);
+    }
+
+    public synchronized BigDecimal getPaid() { return BigDecimal.valueOf(paidCents, 2); }
+
+    public synchronized boolean isComplete() { return nextInstallment >= payment.length; }
+
+    // Index of the first installment not yet fully covered by repayments
+    public synchronized int getNextInstallment() { return nextInstallment; }
+
+    // What is still owed on the next installment after partial payments
+    public synchronized BigDecimal getAmountDue() {
+        if (isComplete()) return BigDecimal.ZERO.setScale(2);
+        return BigDecimal.valueOf(cumulativePayment[nextInstallment] - paidCents, 2);
+    }
+
+    public synchronized LocalDate getNextDueDate(LocalDate createdAt) {
+        return createdAt.plusMonths(Math.min(nextInstallment, payment.length - 1) + 1);
+    }
+}
@@ -0,0 +1,74 @@
+package ledger.model;
+
+import java.util.*;
+
+public class CategoryClassifier {
+    public static final int OTHER = 0;
+
+    private static final List<String> CATEGORIES = new ArrayList<>();
+    private static final Node ROOT = new Node();
+
+    // Keyword prefixes per category; a description token matching the longest prefix wins
+    static {
+        category("Other");
+        category("Food", "makan", "food", "lunch", "dinner", "breakfast", "coffee", "kopi", "nasi",
+                "restaurant", "mamak", "grocer", "snack", "drink");
+        category("Transport", "transport", "grab", "taxi", "train", "lrt", "mrt", "petrol",
+                "fuel", "toll", "parking");
+        category("Travel", "flight", "hotel", "travel", "trip", "holiday", "airbnb", "ticket");
+        category("Bills", "bill", "electric", "water", "phone", "internet", "wifi", "rent", "insurance",
+                "utilit", "tnb", "astro");
+        category("Shopping", "shop", "shopee", "lazada", "cloth", "shoe", "book", "gift");
+        category("Entertainment", "movie", "cinema", "game", "netflix", "spotify", "concert", "gym");
+        category("Family", "daddy", "mummy", "mom", "dad", "family", "parent", "kid", "child");
+        category("Income", "salary", "gaji", "bonus", "allowance", "refund");
+        category("Savings", "savings", "saving");
+    }
+
+    private static class Node {
+        final Map<Character, Node> children = new HashMap<>();
+        int category = -1;
+    }
+
+    private static void category(String name, String... keywords) {
+        int id = CATEGORIES.size();
+        CATEGORIES.add(name);
+        for (String keyword : keywords) {
+            Node node = ROOT;
+            for (char c : keyword.toCharArray()) {
+                node = node.children.computeIfAbsent(c, k -> new Node());
+            }
+            node.category = id;
+        }
+    }
+
+    public static int classify(String description) {
+        String text = description.toLowerCase();
+        int i = 0;
+        while (i < text.length()) {
+            // Skip to the start of the next token
+            while (i < text.length() && !Character.isLetterOrDigit(text.charAt(i))) i++;
+
+            // Walk the trie along the token, remembering the deepest keyword seen
+            Node node = ROOT;
+            int match = -1;
+            while (i < text.length() && Character.isLetterOrDigit(text.charAt(i))) {
+                if (node != null) {
+                    node = node.children.get(text.charAt(i));
+                    if (node != null && node.category >= 0) match = node.category;
+                }
+                i++;
+            }
+            if (match >= 0) return match;
+        }
+        return OTHER;
+    }
+
+    public static String name(int category) {
+        return CATEGORIES.get(category);
+    }
+
+    public static int count() {
+        return CATEGORIES.size();
+    }
+}
@@ -0,0 +1,50 @@
+package ledger.model;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Interns transaction descriptions so each distinct string is held once and rows carry an int id
+public class DescriptionDictionary {
+    private static final ConcurrentHashMap<String, Integer> ids = new ConcurrentHashMap<>();
+    private static volatile String[] descriptions = new String[64];
+    private static volatile int[] categories = new int[64];
+    private static int size = 0;
+
+    public static int intern(String description) {
+        Integer id = ids.get(description);
+        if (id != null) return id;
+
+        synchronized (DescriptionDictionary.class) {
+            id = ids.get(description);
+            if (id != null) return id;
+
+            id = size;
+            String[] newDescriptions = descriptions;
+            int[] newCategories = categories;
+            if (id == newDescriptions.length) {
+                newDescriptions = Arrays.copyOf(newDescriptions, id * 2);
+                newCategories = Arrays.copyOf(newCategories, id * 2);
+            }
+            newDescriptions[id] = description;
+            newCategories[id] = CategoryClassifier.classify(description);
+            // Publish the arrays before the id so readers always find a filled slot
+            categories = newCategories;
+            descriptions = newDescriptions;
+            size++;
+            ids.put(description, id);
+            return id;
+        }
+    }
+
+    public static String get(int id) {
+        return descriptions[id];
+    }
+
+    public static int categoryOf(int id) {
+        return categories[id];
+    }
+
+    public static synchronized int size() {
+        return size;
+    }
+}
@@ -0,0 +1,75 @@
+package ledger.model;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+// One committed change to the ledger. Events are created only after the change is durable and are
+// numbered by the publisher, so a consumer can resume from the last sequence it has seen.
+public class LedgerEvent {
+    public enum Type {
+        USER_REGISTERED,
+        TRANSACTION_RECORDED,   // reference is the transaction id, detail is "<debit|credit> <description>"
+        TRANSACTION_FLAGGED,    // unusual for the user's history; reference is the transaction id, detail the reason
+        SAVINGS_DEPOSITED,      // share of a debit set aside; reference is the debit, detail the percentage
+        SAVINGS_TRANSFERRED,    // monthly move of saved money back to the balance; reference is the transaction id
+        SAVINGS_SETTINGS_CHANGED,
+        LOAN_APPLIED,           // reference is the loan id, amount the total repayment
+        LOAN_REPAID,            // amount repaid, detail is the outstanding balance afterwards
+        LAST_LOGIN_UPDATED
+    }
+
+    private long sequence;
+    private final Instant time;
+    private final Type type;
+    private final int userId;
+    private final int reference;
+    private final BigDecimal amount;
+    private final String detail;
+
+    public LedgerEvent(Type type, int userId, int reference, BigDecimal amount, String detail) {
+        this.time = Instant.now();
+        this.type = type;
+        this.userId = userId;
+        this.reference = reference;
+        this.amount = amount;
+        this.detail = detail;
+    }
+
+    public long getSequence() { return sequence; }
+    public Instant getTime() { return time; }
+    public Type getType() { return type; }
+    public int getUserId() { return userId; }
+    public int getReference() { return reference; }
+    public BigDecimal getAmount() { return amount; }
+    public String getDetail() { return detail; }
+
+    public void setSequence(long sequence) { this.sequence = sequence; }
+
+    // One JSON object per event, written as a single line
+    public String toJson() {
+        StringBuilder json = new StringBuilder(128);
+        json.append("{\"seq\":").append(sequence)
+                .append(",\"time\":\"").append(time)
+                .append("\",\"type\":\"").append(type)
+                .append("\",\"userId\":").append(userId)
+                .append(",\"ref\":").append(reference);
+        if (amount != null) json.append(",\"amount\":\"").append(amount.toPlainString()).append('"');
+        if (detail != null) appendString(json.append(",\"detail\":"), detail);
+        return json.append('}').toString();
+    }
+
+    private static void appendString(StringBuilder json, String value) {
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                json.append('\\').append(c);
+            } else if (c < 0x20) {
+                json.append(String.format("\\u%04x", (int) c));
+            } else {
+                json.append(c);
+            }
+        }
+        json.append('"');
+    }
+}
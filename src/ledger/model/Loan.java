@@ -0,0 +1,93 @@
+package ledger.model;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+
+public class Loan {
+    private int loanId;
+    private int userId;
+    private BigDecimal principalAmount;
+    private double interestRate;
+    private int repaymentPeriod;
+    private BigDecimal outstandingBalance;
+    private String status;
+    private LocalDate createdAt;
+    private AmortizationSchedule schedule;
+
+    public Loan(int loanId, int userId, BigDecimal principalAmount, double interestRate,
+                int repaymentPeriod, BigDecimal outstandingBalance, String status, LocalDate createdAt) {
+        this.loanId = loanId;
+        this.userId = userId;
+        this.principalAmount = principalAmount;
+        this.interestRate = interestRate;
+        this.repaymentPeriod = repaymentPeriod;
+        this.outstandingBalance = outstandingBalance;
+        this.status = status;
+        this.createdAt = createdAt;
+    }
+
+    // A row of loans.csv
+    public static Loan parse(String line) {
+        String[] parts = line.split(",");
+        return new Loan(
+                Integer.parseInt(parts[0]), // loanId
+                Integer.parseInt(parts[1]), // userId
+                new BigDecimal(parts[2]), // principalAmount
+                Double.parseDouble(parts[3]), // interestRate
+                Integer.parseInt(parts[4]), // repaymentPeriod
+                new BigDecimal(parts[5]), // outstandingBalance
+                parts[6], // status
+                LocalDate.parse(parts[7]) // createdAt
+        );
+    }
+
+    // Getters
+    public int getLoanId() { return loanId; }
+    public int getUserId() { return userId; }
+    public BigDecimal getPrincipalAmount() { return principalAmount; }
+    public double getInterestRate() { return interestRate; }
+    public int getRepaymentPeriod() { return repaymentPeriod; }
+    public BigDecimal getOutstandingBalance() { return outstandingBalance; }
+    public String getStatus() { return status; }
+    public LocalDate getCreatedAt() { return createdAt; }
+
+    // Same loan as it stands now; the copy builds its own schedule on first use
+    public Loan copy() {
+        return new Loan(loanId, userId, principalAmount, interestRate, repaymentPeriod, outstandingBalance,
+                status, createdAt);
+    }
+
+    // Built on first use; repayments already made are inferred from the outstanding balance.
+    // A balance above the amortized total belongs to a loan taken out under flat interest, so its
+    // schedule is the flat one, covering at least the balance still owed.
+    public synchronized AmortizationSchedule getSchedule() {
+        if (schedule == null) {
+            schedule = AmortizationSchedule.of(principalAmount, interestRate, repaymentPeriod);
+            if (outstandingBalance.compareTo(schedule.getTotalRepayment()) > 0) {
+                long owedCents = outstandingBalance.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+                long flatCents = AmortizationSchedule.flatTotalCents(principalAmount, interestRate, repaymentPeriod);
+                schedule = AmortizationSchedule.flat(principalAmount, Math.max(flatCents, owedCents), repaymentPeriod);
+            }
+            BigDecimal paid = schedule.getTotalRepayment().subtract(outstandingBalance);
+            if (paid.signum() > 0) {
+                schedule.applyPayment(paid);
+            }
+        }
+        return schedule;
+    }
+
+    // Setters
+    public void setOutstandingBalance(BigDecimal outstandingBalance) {
+        this.outstandingBalance = outstandingBalance;
+    }
+    public synchronized void recordRepayment(BigDecimal amount) {
+        outstandingBalance = outstandingBalance.subtract(amount);
+        if (schedule != null) {
+            schedule.applyPayment(amount);
+        }
+    }
+    public void setStatus(String status) {
+        this.status = status;
+    }
+}
@@ -0,0 +1,67 @@
+package ledger.model;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+
+public class Transaction {
+    private static final int SAVINGS_CATEGORY = CategoryClassifier.classify("savings");
+
+    private int transactionId;
+    private int userId;
+    private String type;
+    private BigDecimal amount;
+    private int descriptionId;
+    private LocalDate date;
+
+    public Transaction(int transactionId, int userId, String type, BigDecimal amount,
+                       String description, LocalDate date) {
+        this.transactionId = transactionId;
+        this.userId = userId;
+        this.type = type;
+        this.amount = amount.setScale(2, RoundingMode.HALF_UP);
+        this.descriptionId = DescriptionDictionary.intern(description);
+        this.date = date;
+    }
+
+    // A row decoded from a TransactionStore block, already in cents and dictionary form
+    public Transaction(int transactionId, int userId, boolean debit, long cents, int descriptionId, LocalDate date) {
+        this.transactionId = transactionId;
+        this.userId = userId;
+        this.type = debit ? "debit" : "credit";
+        this.amount = BigDecimal.valueOf(cents, 2);
+        this.descriptionId = descriptionId;
+        this.date = date;
+    }
+
+    // A row of transactions.csv
+    public static Transaction parse(String line) {
+        String[] parts = line.split(",");
+        return new Transaction(
+                Integer.parseInt(parts[0]), // transactionId
+                Integer.parseInt(parts[1]), // userId
+                parts[2], // type
+                new BigDecimal(parts[3]), // amount
+                parts[4], // description
+                LocalDate.parse(parts[5]) // date
+        );
+    }
+
+    // Getters
+    public int getTransactionId() { return transactionId; }
+    public int getUserId() { return userId; }
+    public String getType() { return type; }
+    public BigDecimal getAmount() { return amount; }
+    public String getDescription() { return DescriptionDictionary.get(descriptionId); }
+    public int getDescriptionId() { return descriptionId; }
+    public int getCategoryId() { return DescriptionDictionary.categoryOf(descriptionId); }
+    public LocalDate getDate() { return date; }
+
+    // The ledger's convention: a debit adds to the balance and a credit takes money off it. Credits
+    // that move money into savings take it off the balance without spending it.
+    public boolean isExpense() { return isExpense(type.equals("debit"), getCategoryId()); }
+
+    public static boolean isExpense(boolean debit, int categoryId) {
+        return !debit && categoryId != SAVINGS_CATEGORY;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,60 @@
+package ledger.model;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+
+// Identity fields live on the object; balance, savings, loan and settings are read from and written
+// to the user's record in an AccountTable, so they survive the User being dropped and re-read.
+public class User {
+    private final AccountTable accounts;
+    private int userId;
+    private String name;
+    private String email;
+    private String passwordHash;
+
+    public User(AccountTable accounts, int userId, String name, String email, String passwordHash) {
+        this.accounts = accounts;
+        this.userId = userId;
+        this.name = name;
+        this.email = email;
+        this.passwordHash = passwordHash;
+        accounts.open(userId);
+    }
+
+    // Getters
+    public int getUserId() { return userId; }
+    public String getName() { return name; }
+    public String getEmail() { return email; }
+    public String getPasswordHash() { return passwordHash; }
+    public BigDecimal getBalance() { return BigDecimal.valueOf(accounts.balanceCents(userId), 2); }
+    public BigDecimal getSavings() { return BigDecimal.valueOf(accounts.savingsCents(userId), 2); }
+    public BigDecimal getLoan() { return BigDecimal.valueOf(accounts.loanCents(userId), 2); }
+    public int getSavingsPercentage() { return accounts.savingsPercentage(userId); }
+    public boolean isSavingsActive() { return accounts.isSavingsActive(userId); }
+    public LocalDate getLastLoginDate() { return accounts.lastLoginDate(userId); }
+
+    // Setters
+    public void setBalance(BigDecimal balance) {
+        accounts.setBalanceCents(userId, toCents(balance));
+    }
+    public void setSavings(BigDecimal savings) {
+        accounts.setSavingsCents(userId, toCents(savings));
+    }
+    public void setLoan(BigDecimal loan) {
+        accounts.setLoanCents(userId, toCents(loan));
+    }
+    public void setSavingsPercentage(int percentage) {
+        accounts.setSavingsPercentage(userId, percentage);
+    }
+    public void setSavingsActive(boolean active) {
+        accounts.setSavingsActive(userId, active);
+    }
+    public void setLastLoginDate(LocalDate date) {
+        accounts.setLastLoginDate(userId, date);
+    }
+
+    private static long toCents(BigDecimal amount) {
+        return amount.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+}
@@ -0,0 +1,223 @@
+package ledger.service;
+
+import ledger.metrics.Metrics;
+import ledger.model.LedgerEvent;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Hands events to a bounded ring buffer and writes them to the sinks on a background thread, so
+// the ledger only pays for a slot copy. If the consumer falls a full ring behind, publish waits
+// rather than dropping events. A sink that fails loses the events written to it in that batch.
+public class AsyncEventPublisher implements EventPublisher {
+    private static final int DEFAULT_CAPACITY = 1 << 14;
+    private static final int BATCH_SIZE = 1024;
+    private static final Pattern SEQUENCE = Pattern.compile("\"seq\":(\\d+)");
+
+    private static final LongAdder published = Metrics.counter("events.published");
+    private static final LongAdder failed = Metrics.counter("events.sink.failures");
+
+    public interface Sink extends Closeable {
+        void write(String line) throws IOException;
+
+        void flush() throws IOException;
+    }
+
+    private final LedgerEvent[] ring;
+    private final int mask;
+    private final List<Sink> sinks;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+    private final Thread consumer;
+    private long head;          // next slot to fill
+    private long tail;          // next slot to drain
+    private long nextSequence;
+    private boolean closed;
+
+    public AsyncEventPublisher(List<Sink> sinks, long lastSequence) {
+        this(sinks, lastSequence, DEFAULT_CAPACITY);
+    }
+
+    public AsyncEventPublisher(List<Sink> sinks, long lastSequence, int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.ring = new LedgerEvent[size];
+        this.mask = size - 1;
+        this.sinks = sinks;
+        this.nextSequence = lastSequence + 1;
+        Metrics.gauge("events.backlog", this::backlog);
+        this.consumer = new Thread(this::drainLoop, "ledger-event-publisher");
+        this.consumer.setDaemon(true);
+        this.consumer.start();
+    }
+
+    @Override
+    public void publish(LedgerEvent event) {
+        lock.lock();
+        try {
+            while (head - tail == ring.length && !closed) {
+                notFull.awaitUninterruptibly();
+            }
+            if (closed) return;
+            event.setSequence(nextSequence++);
+            ring[(int) head & mask] = event;
+            head++;
+            notEmpty.signal();
+        } finally {
+            lock.unlock();
+        }
+        published.increment();
+    }
+
+    private long backlog() {
+        lock.lock();
+        try {
+            return head - tail;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void drainLoop() {
+        LedgerEvent[] batch = new LedgerEvent[BATCH_SIZE];
+        while (true) {
+            int count = 0;
+            lock.lock();
+            try {
+                while (head == tail && !closed) {
+                    notEmpty.awaitUninterruptibly();
+                }
+                if (head == tail) return;
+                while (tail < head && count < BATCH_SIZE) {
+                    int slot = (int) tail & mask;
+                    batch[count++] = ring[slot];
+                    ring[slot] = null;
+                    tail++;
+                }
+                notFull.signalAll();
+            } finally {
+                lock.unlock();
+            }
+
+            for (Sink sink : sinks) {
+                try {
+                    for (int i = 0; i < count; i++) sink.write(batch[i].toJson());
+                    sink.flush();
+                } catch (IOException e) {
+                    failed.increment();
+                }
+            }
+        }
+    }
+
+    // Lets the consumer drain what is queued, then closes the sinks
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            closed = true;
+            notEmpty.signalAll();
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            consumer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (Sink sink : sinks) sink.close();
+    }
+
+    // Sequence of the last event in an existing JSON-lines file, or 0
+    public static long lastSequence(Path file) throws IOException {
+        if (!Files.exists(file)) return 0;
+        try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "r")) {
+            long length = raf.length();
+            byte[] tail = new byte[(int) Math.min(length, 4096)];
+            raf.seek(length - tail.length);
+            raf.readFully(tail);
+            Matcher matcher = SEQUENCE.matcher(new String(tail, StandardCharsets.UTF_8));
+            long last = 0;
+            while (matcher.find()) last = Long.parseLong(matcher.group(1));
+            return last;
+        }
+    }
+
+    public static Sink fileSink(Path file) throws IOException {
+        Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        return new Sink() {
+            @Override
+            public void write(String line) throws IOException {
+                writer.write(line);
+                writer.write('\n');
+            }
+
+            @Override
+            public void flush() throws IOException {
+                writer.flush();
+            }
+
+            @Override
+            public void close() throws IOException {
+                writer.close();
+            }
+        };
+    }
+
+    // Streams to a listener on localhost, reconnecting on the next batch if the connection drops
+    public static Sink socketSink(int port) {
+        return new Sink() {
+            private Socket socket;
+            private Writer writer;
+
+            @Override
+            public void write(String line) throws IOException {
+                try {
+                    if (writer == null) {
+                        socket = new Socket(InetAddress.getLoopbackAddress(), port);
+                        writer = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(),
+                                StandardCharsets.UTF_8), 1 << 16);
+                    }
+                    writer.write(line);
+                    writer.write('\n');
+                } catch (IOException e) {
+                    close();
+                    throw e;
+                }
+            }
+
+            @Override
+            public void flush() throws IOException {
+                if (writer == null) return;
+                try {
+                    writer.flush();
+                } catch (IOException e) {
+                    close();
+                    throw e;
+                }
+            }
+
+            @Override
+            public void close() {
+                try {
+                    if (socket != null) socket.close();
+                } catch (IOException ignored) {
+                    // Nothing more to do with a broken connection
+                }
+                socket = null;
+                writer = null;
+            }
+        };
+    }
+}
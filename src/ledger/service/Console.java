@@ -0,0 +1,67 @@
+package ledger.service;
+
+import java.io.*;
+import java.util.Scanner;
+
+// Buffered console for the interactive UI. After install, System.out writes into a 64 KB buffer that
+// reaches the terminal in one write when the program next waits for input, rather than one write
+// per printed line; a screen of menu and report output costs a single syscall.
+// Long output goes through page, which stops every ledger.page.lines lines (default 40) when both
+// ends are a terminal, and prints straight through when input or output is redirected.
+public class Console {
+    private static final int BUFFER_BYTES = 1 << 16;
+    private static final int PAGE_LINES = Integer.getInteger("ledger.page.lines", 40);
+
+    private static Scanner scanner;
+    private static boolean paging;
+
+    // Buffers System.out for the rest of the run; anything still buffered is written at exit
+    public static synchronized void install() {
+        System.setOut(new PrintStream(new BufferedOutputStream(new FileOutputStream(FileDescriptor.out), BUFFER_BYTES), false));
+        Runtime.getRuntime().addShutdownHook(new Thread(System.out::flush, "console-flush"));
+        paging = System.console() != null;
+    }
+
+    // The one Scanner over standard input; reading from it flushes System.out first, so prompts
+    // are on screen before the program blocks
+    public static synchronized Scanner scanner() {
+        if (scanner == null) scanner = new Scanner(new FlushingInput(System.in));
+        return scanner;
+    }
+
+    // Prints text, pausing after each page when paging is on; q at the prompt skips the rest
+    public static void page(CharSequence text) {
+        if (!paging) {
+            System.out.print(text);
+            return;
+        }
+        int lines = 0;
+        int start = 0;
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) != '\n' || ++lines % PAGE_LINES != 0 || i == text.length() - 1) continue;
+            System.out.append(text, start, i + 1);
+            start = i + 1;
+            System.out.print("-- More (Enter for next page, q to stop) --");
+            if (scanner().nextLine().trim().equalsIgnoreCase("q")) return;
+        }
+        System.out.append(text, start, text.length());
+    }
+
+    private static class FlushingInput extends FilterInputStream {
+        FlushingInput(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            System.out.flush();
+            return super.read();
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            System.out.flush();
+            return super.read(b, off, len);
+        }
+    }
+}
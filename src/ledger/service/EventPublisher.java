@@ -0,0 +1,40 @@
+package ledger.service;
+
+import ledger.model.LedgerEvent;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+// Receives every LedgerEvent once the change it describes has committed.
+// publish is called on the ledger's write path and must not block on I/O.
+public interface EventPublisher extends Closeable {
+    EventPublisher NONE = event -> { };
+
+    void publish(LedgerEvent event);
+
+    @Override
+    default void close() throws IOException { }
+
+    // Configured through system properties; without any of them events are discarded:
+    //   -Dledger.events.file=events.jsonl  append JSON lines to the file (relative to the data directory)
+    //   -Dledger.events.port=9400          stream JSON lines to a listener on localhost
+    static EventPublisher fromProperties(Path dataDir) throws IOException {
+        List<AsyncEventPublisher.Sink> sinks = new ArrayList<>();
+        long lastSequence = 0;
+        String file = System.getProperty("ledger.events.file");
+        if (file != null) {
+            Path path = dataDir.resolve(Paths.get(file));
+            lastSequence = AsyncEventPublisher.lastSequence(path);
+            sinks.add(AsyncEventPublisher.fileSink(path));
+        }
+        Integer port = Integer.getInteger("ledger.events.port");
+        if (port != null) {
+            sinks.add(AsyncEventPublisher.socketSink(port));
+        }
+        return sinks.isEmpty() ? NONE : new AsyncEventPublisher(sinks, lastSequence);
+    }
+}
@@ -0,0 +1,66 @@
+package ledger.service;
+
+import ledger.analytics.SpendingDigest;
+import ledger.analytics.SystemAnalytics;
+import ledger.model.Loan;
+import ledger.model.Transaction;
+import ledger.storage.TransactionArchive;
+import ledger.storage.TransactionStore;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+// What history, loan and analytics reads need from one ledger, as of a sequence number, captured on
+// the ledger's thread and read from any number of threads. Sealed transaction blocks and archive
+// segments are shared with the ledger, so a capture copies only the unsealed tail, the per-user block
+// lists, the loans and the expense digest; decoding and aggregation happen on the reading thread.
+public final class LedgerReadView {
+    public final long sequence;
+    final long capturedAt = System.nanoTime();
+    private final TransactionStore transactions;
+    private final List<Loan> loans;
+    private final int savingsUsers;
+    private final long savingsCents;
+    private final SpendingDigest spending;
+    private final TransactionArchive archive;
+    private final SystemAnalytics.Report archived;
+
+    LedgerReadView(long sequence, TransactionStore transactions, List<Loan> loans, long[] savingsTotals,
+                   SpendingDigest spending, TransactionArchive archive, SystemAnalytics.Report archived) {
+        this.sequence = sequence;
+        this.transactions = transactions;
+        this.loans = loans;
+        this.savingsUsers = (int) savingsTotals[0];
+        this.savingsCents = savingsTotals[1];
+        this.spending = spending;
+        this.archive = archive;
+        this.archived = archived;
+    }
+
+    // Archived and recent transactions of userId in recorded order
+    public List<Transaction> history(int userId) {
+        List<Transaction> recent = transactions.forUser(userId);
+        List<Transaction> archived = archive.read(userId);
+        if (archived.isEmpty()) return recent;
+        List<Transaction> all = new ArrayList<>(archived.size() + recent.size());
+        all.addAll(archived);
+        all.addAll(recent);
+        all.sort(Comparator.comparingInt(Transaction::getTransactionId));
+        return all;
+    }
+
+    // First active loan of userId, or null
+    public Loan activeLoan(int userId) {
+        for (Loan loan : loans) {
+            if (loan.getUserId() == userId && loan.getStatus().equals("active")) return loan;
+        }
+        return null;
+    }
+
+    public SystemAnalytics.Report systemReport() {
+        SystemAnalytics.Report recent = SystemAnalytics.analyze(SystemAnalytics.Columns.of(transactions), loans,
+                savingsUsers, savingsCents, spending.copy());
+        return archive.isEmpty() ? recent : SystemAnalytics.merge(List.of(recent, archived));
+    }
+}
@@ -0,0 +1,278 @@
+package ledger.service;
+
+import ledger.analytics.DataVisualization;
+import ledger.analytics.SystemAnalytics;
+import ledger.metrics.Metrics;
+import ledger.model.Loan;
+import ledger.model.Transaction;
+import ledger.storage.ReplicationServer;
+import ledger.storage.WriteAheadLog;
+
+import java.io.*;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+
+// Read replica: follows a leader's ReplicationServer over a loopback socket, applies the replicated
+// transaction, loan and savings records to its own in-memory state, and answers history and
+// analytics queries so reporting does not load the process taking writes.
+// Usage: java ledger.service.LedgerReplica [port]   (default ledger.replication.port, else 7400)
+//
+// Archived transaction rows arrive as their own stream and are kept apart from transactions.csv, so a
+// rewrite of the CSV leaves them in place. The part of an append the replica already holds is
+// skipped, which makes the leader's catch-up copy and the live stream safe to overlap. On disconnect
+// it reconnects and starts from a fresh copy.
+// Savings are totalled from the replicated savings.csv rows the same way the leader loads them:
+// deposited rows add, the sweep's transferred rows subtract, and the latest settings row wins.
+public class LedgerReplica {
+    private static final LongAdder applied = Metrics.counter("replica.records");
+    private static final LongAdder skipped = Metrics.counter("replica.skipped");
+
+    private final int port;
+    private final List<Transaction> transactions = new ArrayList<>();
+    private final Map<Integer, List<Transaction>> byUser = new HashMap<>();
+    private final List<Transaction> archived = new ArrayList<>();
+    private final Map<Integer, List<Transaction>> archivedByUser = new HashMap<>();
+    private final List<Loan> loans = new ArrayList<>();
+    private final Map<Integer, String[]> savingsSettings = new HashMap<>();
+    private final Map<Integer, Long> savingsCents = new HashMap<>();
+    private final Map<String, Long> lengths = new HashMap<>();
+    private volatile boolean connected;
+    private volatile boolean running = true;
+
+    public LedgerReplica(int port) {
+        this.port = port;
+    }
+
+    // Follows the leader on a background thread until stop is called
+    public void start() {
+        Thread follower = new Thread(this::followLoop, "ledger-replica");
+        follower.setDaemon(true);
+        follower.start();
+    }
+
+    public void stop() {
+        running = false;
+    }
+
+    private void followLoop() {
+        while (running) {
+            try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port);
+                 BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(),
+                         StandardCharsets.UTF_8), 1 << 16)) {
+                connected = true;
+                String line;
+                while (running && (line = in.readLine()) != null) {
+                    List<WriteAheadLog.Effect> effects = WriteAheadLog.decode(line);
+                    if (effects == null) {
+                        System.out.println("Error: corrupt replication record, reconnecting");
+                        break;
+                    }
+                    apply(effects);
+                }
+            } catch (IOException e) {
+                // Leader not up yet or gone; try again shortly
+            }
+            connected = false;
+            try {
+                Thread.sleep(1000);
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    synchronized void apply(List<WriteAheadLog.Effect> effects) {
+        for (WriteAheadLog.Effect effect : effects) {
+            if (!effect.file.equals(ReplicationServer.ARCHIVE)
+                    && !Arrays.asList(ReplicationServer.FILES).contains(effect.file)) continue;
+            byte[] bytes = effect.content.getBytes(StandardCharsets.UTF_8);
+            if (effect.kind == 'W') {
+                clear(effect.file);
+                String[] lines = effect.content.split("\\R");
+                // The archive stream has no header
+                for (int i = effect.file.equals(ReplicationServer.ARCHIVE) ? 0 : 1; i < lines.length; i++) {
+                    addRow(effect.file, lines[i]);
+                }
+                lengths.put(effect.file, (long) bytes.length);
+            } else if (effect.kind == 'A') {
+                long length = lengths.getOrDefault(effect.file, 0L);
+                if (effect.offset + bytes.length <= length) {
+                    skipped.increment();
+                    continue;
+                }
+                // Both copies end on a line, so the part already held is whole lines
+                int held = (int) Math.max(0, length - effect.offset);
+                String content = new String(bytes, held, bytes.length - held, StandardCharsets.UTF_8);
+                for (String line : content.split("\\R")) addRow(effect.file, line);
+                lengths.put(effect.file, effect.offset + bytes.length);
+            }
+            applied.increment();
+        }
+    }
+
+    private void clear(String file) {
+        switch (file) {
+            case ReplicationServer.ARCHIVE:
+                archived.clear();
+                archivedByUser.clear();
+                break;
+            case "transactions.csv":
+                transactions.clear();
+                byUser.clear();
+                break;
+            case "loans.csv":
+                loans.clear();
+                break;
+            case "savings.csv":
+                savingsSettings.clear();
+                savingsCents.clear();
+                break;
+        }
+    }
+
+    private void addRow(String file, String line) {
+        if (line.isBlank()) return;
+        switch (file) {
+            case ReplicationServer.ARCHIVE:
+                Transaction old = Transaction.parse(line);
+                archived.add(old);
+                archivedByUser.computeIfAbsent(old.getUserId(), k -> new ArrayList<>()).add(old);
+                break;
+            case "transactions.csv":
+                Transaction transaction = Transaction.parse(line);
+                transactions.add(transaction);
+                byUser.computeIfAbsent(transaction.getUserId(), k -> new ArrayList<>()).add(transaction);
+                break;
+            case "loans.csv":
+                loans.add(Loan.parse(line));
+                break;
+            case "savings.csv":
+                String[] parts = line.split(",");
+                int userId = Integer.parseInt(parts[1]);
+                if (parts.length < 6) {
+                    savingsSettings.put(userId, parts);
+                } else if (parts[2].equals("deposited") || parts[2].equals("transferred")) {
+                    long cents = new BigDecimal(parts[4]).setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+                    savingsCents.merge(userId, cents, Long::sum);
+                }
+                break;
+        }
+    }
+
+    public synchronized List<Transaction> history(int userId) {
+        List<Transaction> history = new ArrayList<>(archivedByUser.getOrDefault(userId, Collections.emptyList()));
+        history.addAll(byUser.getOrDefault(userId, Collections.emptyList()));
+        history.sort(Comparator.comparingInt(Transaction::getTransactionId));
+        return history;
+    }
+
+    public synchronized BigDecimal balance(int userId) {
+        BigDecimal balance = BigDecimal.ZERO;
+        for (Transaction t : history(userId)) {
+            balance = t.getType().equals("debit") ? balance.add(t.getAmount()) : balance.subtract(t.getAmount());
+        }
+        return balance;
+    }
+
+    public synchronized Loan activeLoan(int userId) {
+        for (Loan loan : loans) {
+            if (loan.getUserId() == userId && loan.getStatus().equals("active")) return loan;
+        }
+        return null;
+    }
+
+    public synchronized BigDecimal savings(int userId) {
+        return BigDecimal.valueOf(savingsCents.getOrDefault(userId, 0L), 2);
+    }
+
+    public SystemAnalytics.Report systemReport() {
+        List<Transaction> transactionCopy;
+        List<Loan> loanCopy;
+        int savingsUsers = 0;
+        long savingsTotal = 0;
+        synchronized (this) {
+            transactionCopy = new ArrayList<>(archived.size() + transactions.size());
+            transactionCopy.addAll(archived);
+            transactionCopy.addAll(transactions);
+            loanCopy = new ArrayList<>(loans);
+            for (String[] settings : savingsSettings.values()) {
+                if (settings[2].equals("active")) savingsUsers++;
+            }
+            for (long cents : savingsCents.values()) savingsTotal += cents;
+        }
+        return SystemAnalytics.analyze(transactionCopy, loanCopy, savingsUsers, savingsTotal);
+    }
+
+    private synchronized String status() {
+        return String.format("%s, %,d transactions (%,d archived), %,d loans, %,d savings settings",
+                connected ? "Following leader on port " + port : "Not connected to leader on port " + port,
+                archived.size() + transactions.size(), archived.size(), loans.size(), savingsSettings.size());
+    }
+
+    private void showUser(int userId) {
+        System.out.printf("Balance: $%.2f%n", balance(userId));
+        Loan loan = activeLoan(userId);
+        System.out.println(loan == null ? "No active loan"
+                : String.format("Active loan: $%.2f outstanding", loan.getOutstandingBalance()));
+        String[] savings;
+        synchronized (this) {
+            savings = savingsSettings.get(userId);
+        }
+        System.out.println(savings == null ? "No savings plan"
+                : "Savings plan: " + savings[2] + ", " + savings[3] + "% of each debit");
+        System.out.printf("Savings: $%.2f%n", savings(userId));
+    }
+
+    public static void main(String[] args) {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : Integer.getInteger("ledger.replication.port", 7400);
+        LedgerReplica replica = new LedgerReplica(port);
+        replica.start();
+
+        Console.install();
+        Scanner scanner = Console.scanner();
+        System.out.println("== Ledger Replica ==");
+        System.out.println("Commands: status | history <userId> | user <userId> | trends <userId> | spending <userId> | analytics | quit");
+        while (true) {
+            System.out.print("> ");
+            if (!scanner.hasNextLine()) break;
+            String[] command = scanner.nextLine().trim().split("\\s+");
+            try {
+                switch (command[0]) {
+                    case "status":
+                        System.out.println(replica.status());
+                        break;
+                    case "history":
+                        LedgerSystem.displayTransactions(replica.history(Integer.parseInt(command[1])));
+                        break;
+                    case "user":
+                        replica.showUser(Integer.parseInt(command[1]));
+                        break;
+                    case "trends":
+                        DataVisualization.showSpendingTrends(replica.history(Integer.parseInt(command[1])));
+                        break;
+                    case "spending":
+                        DataVisualization.showSpendingDistribution(replica.history(Integer.parseInt(command[1])));
+                        break;
+                    case "analytics":
+                        SystemAnalytics.showSystemReport(replica.systemReport());
+                        break;
+                    case "quit":
+                        replica.stop();
+                        return;
+                    case "":
+                        break;
+                    default:
+                        System.out.println("Unknown command!");
+                }
+            } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+                System.out.println("Invalid input!");
+            }
+        }
+        replica.stop();
+    }
+}
@@ -0,0 +1,248 @@
+package ledger.service;
+
+import ledger.metrics.LatencyHistogram;
+import ledger.metrics.Metrics;
+import ledger.model.User;
+
+import java.io.Closeable;
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+// Runs every command against a ledger on one writer thread, in the order the commands were
+// sequenced, so the ledger needs no locks and all changes have one deterministic order.
+//
+// Submitters claim a slot in a fixed ring buffer with a single atomic increment and publish it by
+// writing the slot's sequence; the writer takes published slots in sequence order and frees them as
+// it goes. A full ring makes submitters wait. Nothing on the path takes a lock.
+//
+// After each command the writer publishes an immutable AccountView of the user it ran for, so
+// balances can be read from any thread without going through the writer. History, loan and analytics
+// reads go to a published LedgerReadView instead: the writer only copies the state they need, and
+// the reading thread does the decoding and aggregation. A view is reused until it is older than
+// ledger.sequencer.readview.ms (default 1000) or a reader needs a later sequence, e.g. its own writes.
+// Commands still wait for their write-ahead log record to be durable before the next one starts.
+public class LedgerSequencer implements Closeable {
+    private static final LongAdder commands = Metrics.counter("sequencer.commands");
+    private static final LongAdder failures = Metrics.counter("sequencer.failures");
+    private static final LatencyHistogram queueLatency = Metrics.histogram("sequencer.queue");
+
+    // Spins before the writer parks when the ring is empty
+    private static final int SPINS = 1000;
+    private static final long READ_VIEW_MAX_AGE = TimeUnit.MILLISECONDS.toNanos(
+            Long.getLong("ledger.sequencer.readview.ms", 1000));
+
+    // A ledger call made on the writer thread with the submitter's session resumed
+    public interface Command {
+        boolean apply(LedgerSystem ledger);
+    }
+
+    // Balance, savings and loan of one user as of sequence
+    public static final class AccountView {
+        public final int userId;
+        public final long sequence;
+        public final BigDecimal balance;
+        public final BigDecimal savings;
+        public final BigDecimal loan;
+
+        AccountView(User user, long sequence) {
+            this.userId = user.getUserId();
+            this.sequence = sequence;
+            this.balance = user.getBalance();
+            this.savings = user.getSavings();
+            this.loan = user.getLoan();
+        }
+    }
+
+    // What a command returned, and the session it left behind (null after logout or failed login)
+    public static final class Result {
+        public final boolean ok;
+        public final User session;
+
+        Result(boolean ok, User session) {
+            this.ok = ok;
+            this.session = session;
+        }
+    }
+
+    private static final class Slot {
+        User session;
+        Command command;
+        CompletableFuture<Result> result;
+        long submittedAt;
+    }
+
+    private final LedgerSystem ledger;
+    private final Slot[] slots;
+    private final AtomicLongArray published;
+    private final int mask;
+    private final AtomicLong claimed = new AtomicLong(-1);
+    private volatile long consumed = -1;
+    private volatile boolean sleeping;
+    private volatile boolean running = true;
+    private final Map<Integer, AccountView> views = new ConcurrentHashMap<>();
+    private volatile LedgerReadView readView;
+    private final Object readViewCapture = new Object();
+    private final Thread writer;
+
+    // capacity is rounded up to a power of two
+    public LedgerSequencer(LedgerSystem ledger, int capacity, String name) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.ledger = ledger;
+        this.slots = new Slot[size];
+        this.published = new AtomicLongArray(size);
+        this.mask = size - 1;
+        for (int i = 0; i < size; i++) {
+            slots[i] = new Slot();
+            published.set(i, -1);
+        }
+        this.writer = new Thread(this::writeLoop, name);
+        this.writer.setDaemon(true);
+        this.writer.start();
+        Metrics.gauge(name + ".backlog", () -> claimed.get() - consumed);
+    }
+
+    // Sized from ledger.sequencer.capacity (default 1024)
+    public static LedgerSequencer fromProperties(LedgerSystem ledger, String name) {
+        return new LedgerSequencer(ledger, Integer.getInteger("ledger.sequencer.capacity", 1024), name);
+    }
+
+    public CompletableFuture<Result> submit(User session, Command command) {
+        CompletableFuture<Result> result = new CompletableFuture<>();
+        if (!running) {
+            result.completeExceptionally(new IllegalStateException("Sequencer is closed"));
+            return result;
+        }
+        long sequence = claimed.incrementAndGet();
+        while (sequence - slots.length > consumed) {
+            if (!writer.isAlive()) {
+                result.completeExceptionally(new IllegalStateException("Sequencer is closed"));
+                return result;
+            }
+            LockSupport.parkNanos(1_000);
+        }
+        Slot slot = slots[(int) (sequence & mask)];
+        slot.session = session;
+        slot.command = command;
+        slot.result = result;
+        slot.submittedAt = System.nanoTime();
+        published.set((int) (sequence & mask), sequence);
+        if (sleeping) LockSupport.unpark(writer);
+        // close() may have begun since the check above, and the writer may already be gone
+        if (!running) failUnconsumed();
+        return result;
+    }
+
+    // Runs command and waits for it
+    public Result execute(User session, Command command) {
+        return submit(session, command).join();
+    }
+
+    // Latest published view of userId, or null if no command has run for that user yet
+    public AccountView view(int userId) {
+        return views.get(userId);
+    }
+
+    // A read view that includes every command up to minSequence and is not too old; if the published
+    // one does not qualify, one caller has the writer capture a new one and the others wait for it
+    public LedgerReadView readView(long minSequence) {
+        LedgerReadView view = readView;
+        if (usable(view, minSequence)) return view;
+        synchronized (readViewCapture) {
+            view = readView;
+            if (usable(view, minSequence)) return view;
+            LedgerReadView[] captured = new LedgerReadView[1];
+            if (!execute(null, ledger -> (captured[0] = ledger.readView(consumed)) != null).ok) {
+                throw new IllegalStateException("Read view capture failed");
+            }
+            readView = captured[0];
+            return captured[0];
+        }
+    }
+
+    private static boolean usable(LedgerReadView view, long minSequence) {
+        return view != null && view.sequence >= minSequence && System.nanoTime() - view.capturedAt < READ_VIEW_MAX_AGE;
+    }
+
+    public long sequence() {
+        return consumed;
+    }
+
+    private void writeLoop() {
+        int idle = 0;
+        while (true) {
+            long next = consumed + 1;
+            int index = (int) (next & mask);
+            if (published.get(index) != next) {
+                if (!running && claimed.get() < next) return;
+                if (++idle < SPINS) {
+                    Thread.onSpinWait();
+                    continue;
+                }
+                sleeping = true;
+                if (published.get(index) != next && running) LockSupport.parkNanos(1_000_000);
+                sleeping = false;
+                continue;
+            }
+            idle = 0;
+
+            Slot slot = slots[index];
+            User session = slot.session;
+            Command command = slot.command;
+            CompletableFuture<Result> result = slot.result;
+            queueLatency.recordSince(slot.submittedAt);
+            slot.session = null;
+            slot.command = null;
+            slot.result = null;
+            consumed = next;
+
+            try {
+                ledger.resumeSession(session);
+                boolean ok = command.apply(ledger);
+                User after = ledger.currentUser();
+                if (after != null) views.put(after.getUserId(), new AccountView(after, next));
+                commands.increment();
+                result.complete(new Result(ok, after));
+            } catch (Throwable e) {
+                // An Error must not take the writer down with every pending command still waiting
+                failures.increment();
+                result.completeExceptionally(e);
+            }
+        }
+    }
+
+    // Runs every command already submitted, then stops the writer; the ledger stays open.
+    // Commands submitted while it closes either run or fail; none is left waiting.
+    @Override
+    public void close() {
+        running = false;
+        LockSupport.unpark(writer);
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        failUnconsumed();
+    }
+
+    // Once the writer has stopped, fails the commands published after its last one
+    private synchronized void failUnconsumed() {
+        if (writer.isAlive()) return;
+        for (long sequence = consumed + 1; sequence <= claimed.get(); sequence++) {
+            int index = (int) (sequence & mask);
+            if (published.get(index) != sequence) continue;
+            Slot slot = slots[index];
+            CompletableFuture<Result> result = slot.result;
+            slot.session = null;
+            slot.command = null;
+            slot.result = null;
+            if (result != null) result.completeExceptionally(new IllegalStateException("Sequencer is closed"));
+        }
+    }
+}
@@ -0,0 +1,1638 @@
+package ledger.service;
+
+import ledger.analytics.DataVisualization;
+import ledger.analytics.DepositInterestPredictor;
+import ledger.analytics.SavingsProjection;
+import ledger.analytics.SpendingDigest;
+import ledger.analytics.SpendingProfiles;
+import ledger.analytics.SystemAnalytics;
+import ledger.metrics.LatencyHistogram;
+import ledger.metrics.Metrics;
+import ledger.model.AccountTable;
+import ledger.model.AmortizationSchedule;
+import ledger.model.DescriptionDictionary;
+import ledger.model.LedgerEvent;
+import ledger.model.Loan;
+import ledger.model.Transaction;
+import ledger.model.User;
+import ledger.storage.EmailIndex;
+import ledger.storage.LedgerSnapshot;
+import ledger.storage.ReplicationServer;
+import ledger.storage.TransactionArchive;
+import ledger.storage.TransactionStore;
+import ledger.storage.WriteAheadLog;
+
+import java.io.*;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+public class LedgerSystem {
+    // Committed operations between background snapshots
+    private static final int SNAPSHOT_INTERVAL = 1000;
+    // Transactions dated before the start of the month this many months back are archived; off unless
+    // ledger.archive.months is set, since the first roll rewrites transactions.csv
+    private static final int ARCHIVE_MONTHS = Integer.getInteger("ledger.archive.months", 0);
+    // Month of the last savings sweep, so sweeps missed while the ledger was down run when it starts
+    private static final String SWEEP_FILE = "savings_sweep.csv";
+    // Description of the credit that moves a debit's savings share off the balance
+    private static final String SAVINGS_DEPOSIT = "Savings Deposit";
+    // Users kept in memory after being read from users.csv, see ledger.users.cached
+    private static final int CACHED_USERS = Integer.getInteger("ledger.users.cached", 100_000);
+    // History table layout shared by viewHistory and the filtered views
+    private static final String TABLE_ROW = "| %-10s | %-15s | %12s | %12s | %12s |%n";
+    private static final String TABLE_SEPARATOR =
+            "+------------+-----------------+--------------+--------------+--------------+" + System.lineSeparator();
+
+    private static final LatencyHistogram loadLatency = Metrics.histogram("ledger.load");
+    private static final LatencyHistogram loginLatency = Metrics.histogram("ledger.login");
+    private static final LatencyHistogram transactionLatency = Metrics.histogram("ledger.transaction");
+    private static final LatencyHistogram loanApplyLatency = Metrics.histogram("ledger.loan.apply");
+    private static final LatencyHistogram loanRepayLatency = Metrics.histogram("ledger.loan.repay");
+    private static final LatencyHistogram historyLatency = Metrics.histogram("ledger.history");
+    private static final LatencyHistogram analyticsLatency = Metrics.histogram("ledger.analytics");
+    private static final LatencyHistogram sweepLatency = Metrics.histogram("ledger.savings.sweep");
+    private static final LongAdder sweptAccounts = Metrics.counter("ledger.savings.swept");
+    private static final LongAdder loginFailures = Metrics.counter("ledger.login.failures");
+    private static final LongAdder anomalies = Metrics.counter("ledger.anomalies");
+    private static final LongAdder errors = Metrics.counter("ledger.errors");
+
+    private final Path dataDir;
+    private Map<String, User> users;      // recently used users by email; the rest stay on disk
+    private final AccountTable accounts;
+    private final SpendingProfiles profiles;
+    private final int shard;
+    private final int shardCount;
+    private EmailIndex emailIndex;
+    private TransactionStore transactions;    // recent transactions as encoded blocks; older ones are in the archive
+    private TransactionArchive archive;
+    private SystemAnalytics.Report archived;   // spending totals of the archive, which only changes at open
+    private YearMonth lastSweptMonth;      // null until the first sweep
+    private SpendingDigest spending;       // sizes of recent expenses; the archive keeps its own
+    private List<Loan> loans;
+    private User currentUser;
+    private DepositInterestPredictor interestPredictor;
+    private WriteAheadLog wal;
+    private ReplicationServer replication;
+    private ScheduledExecutorService sweepTimer;
+    private EventPublisher events = EventPublisher.NONE;
+    private final UserSessionCache sessions = UserSessionCache.fromProperties();
+    private int commitsSinceSnapshot;
+    private final Scanner scanner;
+
+    public LedgerSystem() {
+        this(Paths.get(""), Console.scanner());
+    }
+
+    // Ledger over the CSV files in dataDir, reading interactive input from scanner
+    public LedgerSystem(Path dataDir, Scanner scanner) {
+        this(dataDir, scanner, 0, 1);
+    }
+
+    // One shard of a ShardedLedger: it allocates the userIds u with (u - 1) % shardCount == shard
+    public LedgerSystem(Path dataDir, Scanner scanner, int shard, int shardCount) {
+        this.dataDir = dataDir;
+        this.scanner = scanner;
+        this.shard = shard;
+        this.shardCount = shardCount;
+        this.accounts = new AccountTable(shardCount, shard);
+        this.profiles = new SpendingProfiles(shardCount);
+        // Account state is kept in the AccountTable, so evicting a user only drops its strings
+        users = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, User> eldest) {
+                return size() > CACHED_USERS;
+            }
+        };
+        transactions = new TransactionStore();
+        spending = new SpendingDigest();
+        loans = new ArrayList<>();
+        openWriteAheadLog();
+        openEventPublisher();
+        setupFiles();
+        long loadStart = System.nanoTime();
+        openArchive();
+        loadInitialData();
+        loadLatency.recordSince(loadStart);
+        loadBankRates();
+        // Followers are served only once the archive has rolled, so their copy matches the files
+        openReplication();
+
+        long loadMillis = (System.nanoTime() - loadStart) / 1_000_000;
+        String prefix = shardCount == 1 ? "ledger." : "ledger.shard" + shard + ".";
+        Metrics.gauge(prefix + "load.ms", () -> loadMillis);
+        Metrics.gauge(prefix + "users", () -> emailIndex == null ? 0 : emailIndex.size());
+        Metrics.gauge(prefix + "users.cached", () -> users.size());
+        Metrics.gauge(prefix + "sessions.size", sessions::size);
+        Metrics.gauge(prefix + "accounts", () -> accounts.size());
+        Metrics.gauge(prefix + "accounts.offheap.bytes", accounts::allocatedBytes);
+        Metrics.gauge(prefix + "profiles.offheap.bytes", profiles::allocatedBytes);
+        Metrics.gauge(prefix + "transactions", () -> transactions.size());
+        Metrics.gauge(prefix + "transactions.encoded.bytes", () -> transactions.encodedBytes());
+        Metrics.gauge(prefix + "loans", () -> loans.size());
+    }
+
+    // Stops the write-ahead log and event publisher; pending operations and events are flushed first,
+    // and a snapshot is written if anything was committed since the last one
+    public void close() {
+        try {
+            if (sweepTimer != null) sweepTimer.shutdownNow();
+            if (commitsSinceSnapshot > 0) {
+                Future<?> written = takeSnapshot();
+                if (written != null) written.get();
+            }
+            wal.close();
+            if (replication != null) replication.close();
+            events.close();
+            if (emailIndex != null) emailIndex.close();
+        } catch (IOException e) {
+            errors.increment();
+            System.out.println("Error closing write-ahead log: " + e.getMessage());
+        } catch (InterruptedException | ExecutionException e) {
+            errors.increment();
+            System.out.println("Error writing snapshot: " + e.getMessage());
+        }
+    }
+
+    private void openEventPublisher() {
+        try {
+            events = EventPublisher.fromProperties(dataDir);
+        } catch (IOException e) {
+            errors.increment();
+            System.out.println("Error opening event stream: " + e.getMessage());
+        }
+    }
+
+    // Replaces the configured publisher, e.g. with an in-process consumer
+    public void setEventPublisher(EventPublisher publisher) {
+        events = publisher;
+    }
+
+    private void openWriteAheadLog() {
+        try {
+            wal = WriteAheadLog.open(dataDir);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open write-ahead log", e);
+        }
+    }
+
+    // Serves the log to LedgerReplica followers when ledger.replication.port is set
+    private void openReplication() {
+        Integer port = Integer.getInteger("ledger.replication.port");
+        if (port == null) return;
+        try {
+            replication = ReplicationServer.start(dataDir, port + shard, archive);
+            wal.setReplicator(replication);
+        } catch (IOException e) {
+            errors.increment();
+            System.out.println("Error starting replication: " + e.getMessage());
+        }
+    }
+
+    // Durably logs and applies a multi-file operation; prints the given message if it fails
+    private boolean commit(WriteAheadLog.Operation op, String errorMessage) {
+        try {
+            wal.commit(op);
+            if (++commitsSinceSnapshot >= SNAPSHOT_INTERVAL) {
+                takeSnapshot();
+            }
+            return true;
+        } catch (IOException e) {
+            errors.increment();
+            System.out.println(errorMessage);
+            return false;
+        }
+    }
+
+    private void setupFiles() {
+        String[] files = {"users.csv", "transactions.csv", "savings.csv", "loans.csv"};
+        for (String file : files) {
+            try {
+                File f = dataDir.resolve(file).toFile();
+                if (!f.exists()) {
+                    PrintWriter writer = new PrintWriter(new FileWriter(f));
+                    switch (file) {
+                        case "users.csv":
+                            writer.println("user_id,name,email,password_hash,last_login_date");
+                            break;
+                        case "transactions.csv":
+                            writer.println("transaction_id,user_id,type,amount,description,date");
+                            break;
+                        case "savings.csv":
+                            writer.println("savings_id,user_id,status,percentage");
+                            break;
+                        case "loans.csv":
+                            writer.println("loan_id,user_id,principal_amount,interest_rate,repayment_period,outstanding_balance,status,created_at");
+                            break;
+                    }
+                    writer.close();
+                }
+            } catch (IOException e) {
+                errors.increment();
+                System.out.println("Error creating file: " + file);
+            }
+        }
+    }
+
+    private void loadBankRates() {
+        try {
+            Path banksFile = dataDir.resolve(DepositInterestPredictor.BANKS_FILE);
+            if (!Files.exists(banksFile)) {
+                DepositInterestPredictor.writeDefaults(banksFile);
+            }
+            interestPredictor = DepositInterestPredictor.load(banksFile);
+        } catch (IOException | RuntimeException e) {
+            System.out.println("Error loading bank rates, using defaults: " + e.getMessage());
+            interestPredictor = new DepositInterestPredictor(DepositInterestPredictor.defaultRates());
+        }
+    }
+
+    // Rolls transactions that have aged out of the hot window into the archive before anything is loaded
+    private void openArchive() {
+        try {
+            archive = TransactionArchive.open(dataDir);
+            if (ARCHIVE_MONTHS > 0) {
+                archive.roll(LocalDate.now().withDayOfMonth(1).minusMonths(ARCHIVE_MONTHS),
+                        SystemAnalytics::writeSummary);
+            }
+            archived = SystemAnalytics.archiveSummary(archive);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open transaction archive", e);
+        }
+    }
+
+    private int nextTransactionId() {
+        return archive.rows() + transactions.size() + 1;
+    }
+
+    private void loadInitialData() {
+        try {
+            LedgerSnapshot snapshot = LedgerSnapshot.read(dataDir);
+
+            // Users are read on demand through the email index
+            emailIndex = EmailIndex.open(dataDir);
+
+            // Load transactions, parsing only what was appended since the snapshot
+            long covered = snapshot == null ? -1 : snapshot.coveredLength(dataDir, "transactions.csv");
+            if (covered >= 0) {
+                transactions = snapshot.transactions;
+                transactions.scan((id, userId, debit, cents, descriptionId, epochDay) -> {
+                    if (Transaction.isExpense(debit, DescriptionDictionary.categoryOf(descriptionId))) spending.add(cents);
+                });
+                snapshot.balances.forEach(this::addBalanceCents);
+            } else {
+                covered = 0;
+                archive.balanceCents().forEach(this::addBalanceCents);
+            }
+            int tailRows = loadTransactions(covered);
+
+            // Spending profiles come from the recent transactions only; archived rows are older than
+            // anything the moving averages still remember
+            profiles.rebuild(transactions, accounts.maxUserId());
+
+            // Load loans
+            if (snapshot != null && snapshot.isUnchanged(dataDir, "loans.csv")) {
+                loans.addAll(snapshot.loans);
+            } else {
+                List<String> loanLines = Files.readAllLines(dataDir.resolve("loans.csv"));
+                for (int i = 1; i < loanLines.size(); i++) {
+                    loans.add(Loan.parse(loanLines.get(i)));
+                }
+            }
+            AmortizationSchedule.buildAll(loans);
+            loadLoanBalances();
+            loadSavings();
+
+            if (tailRows >= SNAPSHOT_INTERVAL) {
+                takeSnapshot();
+            }
+        } catch (IOException e) {
+            errors.increment();
+            System.out.println("Error loading initial data: " + e.getMessage());
+        }
+    }
+
+    // Reads transactions.csv from the given byte offset; offset 0 means the file starts with the header
+    private int loadTransactions(long offset) throws IOException {
+        int rows = 0;
+        try (FileChannel channel = FileChannel.open(dataDir.resolve("transactions.csv"))) {
+            channel.position(offset);
+            BufferedReader reader = new BufferedReader(Channels.newReader(channel, StandardCharsets.UTF_8), 1 << 16);
+            if (offset == 0) {
+                reader.readLine(); // Skip header
+            }
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty()) continue;
+                Transaction transaction = Transaction.parse(line);
+                transactions.add(transaction);
+                indexBalance(transaction);
+                rows++;
+            }
+        }
+        return rows;
+    }
+
+    // Cached user for email, or the user's row read through the index; null if not registered
+    private User findUser(String email) {
+        User user = users.get(email);
+        if (user != null) return user;
+        try {
+            long offset = emailIndex.find(email);
+            if (offset < 0) return null;
+            user = parseUser(emailIndex.readLine(offset));
+            users.put(email, user);
+            return user;
+        } catch (IOException e) {
+            errors.increment();
+            System.out.println("Error reading user data: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private void indexUser(String email, long offset) {
+        try {
+            emailIndex.add(email, offset);
+        } catch (IOException e) {
+            errors.increment();
+            System.out.println("Error indexing user: " + e.getMessage());
+        }
+    }
+
+    private User parseUser(String line) {
+        String[] parts = line.split(",");
+        User user = new User(
+                accounts,
+                Integer.parseInt(parts[0]), // userId
+                parts[1], // name
+                parts[2], // email
+                parts[3]  // passwordHash
+        );
+        // Set last login date if it exists
+        if (parts.length > 4 && !parts[4].isEmpty()) {
+            user.setLastLoginDate(LocalDate.parse(parts[4]));
+        }
+        return user;
+    }
+
+    // Puts every user's savings settings and savings into the account table. Settings rows carry no
+    // amount, and the latest one for a user wins. Deposited rows add to a user's savings and the sweep's
+    // transferred rows take them back out. Older rows with an amount but an active status were never
+    // taken off the balance in transactions.csv, so counting them would pay the same money out twice.
+    private void loadSavings() throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(dataDir.resolve("savings.csv"))) {
+            reader.readLine(); // Skip header
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty()) continue;
+                String[] parts = line.split(",");
+                int userId = Integer.parseInt(parts[1]);
+                if (parts.length < 6) {
+                    accounts.open(userId);
+                    accounts.setSavingsActive(userId, parts[2].equals("active"));
+                    accounts.setSavingsPercentage(userId, Integer.parseInt(parts[3]));
+                    continue;
+                }
+                if (!(parts[2].equals("deposited") || parts[2].equals("transferred"))) continue;
+                long cents = new BigDecimal(parts[4]).setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+                accounts.open(userId);
+                accounts.setSavingsCents(userId, accounts.savingsCents(userId) + cents);
+            }
+        }
+        Path sweepFile = dataDir.resolve(SWEEP_FILE);
+        if (Files.exists(sweepFile)) {
+            List<String> lines = Files.readAllLines(sweepFile);
+            if (lines.size() > 1) lastSweptMonth = YearMonth.parse(lines.get(1));
+        }
+    }
+
+    // Keeps the per-user balance (sum of debits minus credits) and the expense digest current as
+    // transactions are added
+    private void indexBalance(Transaction transaction) {
+        long cents = transaction.getAmount().unscaledValue().longValueExact();
+        boolean debit = transaction.getType().equals("debit");
+        addBalanceCents(transaction.getUserId(), debit ? cents : -cents);
+        if (transaction.isExpense()) spending.add(cents);
+    }
+
+    // Opens the user's account record on first sight, so every user's balance is in the table
+    private void addBalanceCents(int userId, long cents) {
+        accounts.open(userId);
+        accounts.setBalanceCents(userId, accounts.balanceCents(userId) + cents);
+    }
+
+    // Captures a snapshot now and writes it in the background; null if it could not be captured
+    private Future<?> takeSnapshot() {
+        try {
+            Future<?> written = LedgerSnapshot.capture(dataDir, transactions, loans, accounts)
+                    .writeInBackground(dataDir);
+            commitsSinceSnapshot = 0;
+            return written;
+        } catch (IOException e) {
+            errors.increment();
+            System.out.println("Error taking snapshot: " + e.getMessage());
+            return null;
+        }
+    }
+
+    // Puts the outstanding balance of each user's first active loan into the account table, so a login
+    // finds everything it shows there
+    private void loadLoanBalances() {
+        for (int i = loans.size() - 1; i >= 0; i--) {
+            Loan loan = loans.get(i);
+            if (!loan.getStatus().equals("active")) continue;
+            accounts.open(loan.getUserId());
+            accounts.setLoanCents(loan.getUserId(),
+                    loan.getOutstandingBalance().setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact());
+        }
+    }
+
+    private UserSessionCache.Session session() {
+        return sessions.get(currentUser.getUserId(), this::loadSession);
+    }
+
+    // Built from the store's per-user block index; archived rows are only read if asked for
+    private UserSessionCache.Session loadSession(int userId) {
+        UserSessionCache.Session session = new UserSessionCache.Session(userId, transactions.forUser(userId));
+        session.archiveReader = () -> archive.read(userId);
+        return session;
+    }
+
+    private void updateLastLoginDateInFile(WriteAheadLog.Operation op) {
+        try {
+            long offset = emailIndex.find(currentUser.getEmail());
+            if (offset < 0) return;
+            String line = emailIndex.readLine(offset);
+            String today = LocalDate.now().toString();
+
+            // Dates are fixed width, so a row that already has one is patched in place
+            int dateStart = line.lastIndexOf(',') + 1;
+            if (dateStart > 0 && line.length() - dateStart == today.length()) {
+                long dateOffset = offset + line.substring(0, dateStart).getBytes(StandardCharsets.UTF_8).length;
+                op.patch("users.csv", dateOffset, today);
+                return;
+            }
+
+            // Otherwise the row grows, and is patched in together with the rows after it, which move
+            String[] parts = line.split(",");
+            String newLine = String.format("%s,%s,%s,%s,%s",
+                    parts[0], // userId
+                    parts[1], // name
+                    parts[2], // email
+                    parts[3], // passwordHash
+                    today // current date
+            );
+            long tailStart = offset + line.getBytes(StandardCharsets.UTF_8).length;
+            ByteBuffer tail;
+            try (FileChannel file = FileChannel.open(dataDir.resolve("users.csv"))) {
+                tail = ByteBuffer.allocate((int) Math.max(0, file.size() - tailStart));
+                while (tail.hasRemaining()) {
+                    if (file.read(tail, tailStart + tail.position()) < 0) break;
+                }
+            }
+            op.patch("users.csv", offset, newLine + new String(tail.array(), 0, tail.position(), StandardCharsets.UTF_8));
+            // Rows after this one have moved
+            op.onCommit(() -> {
+                try {
+                    emailIndex.rebuild();
+                } catch (IOException e) {
+                    errors.increment();
+                    System.out.println("Error rebuilding user index: " + e.getMessage());
+                }
+            });
+        } catch (IOException e) {
+            errors.increment();
+            System.out.println("Error updating last login date: " + e.getMessage());
+        }
+    }
+
+    static String hashPassword(String password) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] hash = digest.digest(password.getBytes());
+            StringBuilder hexString = new StringBuilder();
+            for (byte b : hash) {
+                String hex = Integer.toHexString(0xff & b);
+                if (hex.length() == 1) hexString.append('0');
+                hexString.append(hex);
+            }
+            return hexString.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private boolean validateEmail(String email) {
+        String emailRegex = "^[A-Za-z0-9+_.-]+@(.+)$";
+        Pattern pattern = Pattern.compile(emailRegex);
+        return pattern.matcher(email).matches();
+    }
+
+    private boolean validatePassword(String password) {
+        return password.length() >= 6 &&
+                password.matches(".*[a-zA-Z].*") &&
+                password.matches(".*\\d.*");
+    }
+
+    public boolean register(String name, String email, String password) {
+        if (!validateEmail(email)) {
+            System.out.println("Invalid email format!");
+            return false;
+        }
+
+        if (!validatePassword(password)) {
+            System.out.println("Password must be at least 6 characters and contain both letters and numbers!");
+            return false;
+        }
+
+        if (findUser(email) != null) {
+            System.out.println("Email already registered!");
+            return false;
+        }
+
+        int userId = emailIndex.size() * shardCount + shard + 1;
+        String passwordHash = hashPassword(password);
+        User user = new User(accounts, userId, name, email, passwordHash);
+
+        // Save to CSV with last login date
+        WriteAheadLog.Operation op = new WriteAheadLog.Operation("register");
+        op.append("users.csv", String.format("%d,%s,%s,%s,%s",
+                        userId, name, email, passwordHash, LocalDate.now()))
+                .onCommit(() -> {
+                    users.put(email, user);
+                    indexUser(email, op.appendOffset("users.csv"));
+                    events.publish(new LedgerEvent(LedgerEvent.Type.USER_REGISTERED, userId, userId, null, email));
+                });
+        return commit(op, "Error saving user data!");
+    }
+
+    public boolean login(String email, String password) {
+        long start = System.nanoTime();
+        try {
+            User user = findUser(email);
+            if (user != null && user.getPasswordHash().equals(hashPassword(password))) {
+                // Balance, savings, settings and loan are already in the account table
+                currentUser = user;
+                recordLogin();
+                return true;
+            }
+            loginFailures.increment();
+            return false;
+        } finally {
+            loginLatency.recordSince(start);
+        }
+    }
+
+    public boolean recordTransaction(String type, String amountStr, String description) {
+        long start = System.nanoTime();
+        try {
+            WriteAheadLog.Operation op = new WriteAheadLog.Operation(type);
+            return prepareTransaction(op, type, amountStr, description)
+                    && commit(op, "Error saving transaction!");
+        } finally {
+            transactionLatency.recordSince(start);
+        }
+    }
+
+    // Validates a transaction and adds it to op; memory is only updated once op commits
+    private boolean prepareTransaction(WriteAheadLog.Operation op, String type, String amountStr,
+                                       String description) {
+        try {
+            BigDecimal amount = new BigDecimal(amountStr);
+            if (amount.compareTo(BigDecimal.ZERO) <= 0) {
+                System.out.println("Amount must be positive!");
+                return false;
+            }
+
+            if (description.length() > 100) {
+                System.out.println("Description too long!");
+                return false;
+            }
+
+            // Check for overdue loans
+            boolean hasOverdueLoan = loans.stream()
+                    .anyMatch(l -> l.getUserId() == currentUser.getUserId() &&
+                            l.getStatus().equals("active") &&
+                            l.getCreatedAt().plusMonths(l.getRepaymentPeriod())
+                                    .isBefore(LocalDate.now()));
+
+            if (hasOverdueLoan) {
+                System.out.println("Cannot perform transactions! You have an overdue loan!");
+                return false;
+            }
+
+            int transactionId = nextTransactionId();
+            LocalDate date = LocalDate.now();
+
+            Transaction transaction = new Transaction(
+                    transactionId,
+                    currentUser.getUserId(),
+                    type,
+                    amount,
+                    description,
+                    date
+            );
+            long cents = transaction.getAmount().unscaledValue().longValueExact();
+            String anomaly = profiles.check(currentUser.getUserId(), type.equals("debit"), cents,
+                    transaction.getCategoryId());
+
+            // Save transaction to CSV
+            op.append("transactions.csv", transactionId + "," + currentUser.getUserId() + "," +
+                    type + "," + transaction.getAmount().toPlainString() + "," + description + "," + date);
+
+            op.onCommit(() -> {
+                transactions.add(transaction);
+                indexBalance(transaction);
+                sessions.recordTransaction(transaction);
+                profiles.record(transaction.getUserId(), type.equals("debit"), cents, transaction.getCategoryId());
+
+                events.publish(new LedgerEvent(LedgerEvent.Type.TRANSACTION_RECORDED, transaction.getUserId(),
+                        transactionId, amount, type + " " + description));
+                if (anomaly != null) {
+                    anomalies.increment();
+                    System.out.println("Note: " + anomaly);
+                    events.publish(new LedgerEvent(LedgerEvent.Type.TRANSACTION_FLAGGED, transaction.getUserId(),
+                            transactionId, amount, anomaly));
+                }
+            });
+            return true;
+        } catch (NumberFormatException e) {
+            System.out.println("Invalid amount!");
+            return false;
+        }
+    }
+
+    public boolean setSavings(int percentage) {
+        if (percentage < 0 || percentage > 100) {
+            System.out.println("Percentage must be between 0 and 100!");
+            return false;
+        }
+
+        // Save to CSV
+        WriteAheadLog.Operation op = new WriteAheadLog.Operation("savings_settings")
+                .append("savings.csv", nextTransactionId() + "," + currentUser.getUserId() +
+                        ",active," + percentage)
+                .onCommit(() -> {
+                    currentUser.setSavingsActive(true);
+                    currentUser.setSavingsPercentage(percentage);
+                    events.publish(new LedgerEvent(LedgerEvent.Type.SAVINGS_SETTINGS_CHANGED,
+                            currentUser.getUserId(), 0, null, String.valueOf(percentage)));
+                });
+        return commit(op, "Error saving savings settings!");
+    }
+
+    public void viewHistory() {
+        long start = System.nanoTime();
+        System.out.println("== History ==");
+
+        // Get sorted transactions for current user
+        List<Transaction> userTransactions = userTransactions();
+        userTransactions.sort(Comparator.comparing(Transaction::getDate));
+        printTransactionTable(userTransactions);
+
+        // Export to CSV
+        try (PrintWriter writer = new PrintWriter(dataDir.resolve("history_" + currentUser.getUserId() + ".csv").toFile())) {
+            writer.println("Date,Description,Debit,Credit,Balance");
+            BigDecimal runningBalance = BigDecimal.ZERO;
+            for (Transaction t : userTransactions) {
+                if (t.getType().equals("debit")) {
+                    runningBalance = runningBalance.add(t.getAmount());
+                    writer.printf("%s,%s,%.2f,,%.2f%n",
+                            t.getDate(), t.getDescription(), t.getAmount(), runningBalance);
+                } else {
+                    runningBalance = runningBalance.subtract(t.getAmount());
+                    writer.printf("%s,%s,,%.2f,%.2f%n",
+                            t.getDate(), t.getDescription(), t.getAmount(), runningBalance);
+                }
+            }
+            System.out.println("File Exported!");
+        } catch (IOException e) {
+            errors.increment();
+            System.out.println("Error exporting history!");
+        }
+        historyLatency.recordSince(start);
+    }
+
+    private void handleCreditLoan() {
+        System.out.println("== Credit Loan ==");
+        System.out.println("1. Apply for Loan");
+        System.out.println("2. Repay Loan");
+        System.out.print(">");
+
+        String choice = scanner.nextLine();
+        switch (choice) {
+            case "1":
+                applyForLoan();
+                break;
+            case "2":
+                repayLoan();
+                break;
+            default:
+                System.out.println("Invalid choice!");
+        }
+    }
+
+    private Optional<Loan> activeLoan() {
+        return loans.stream()
+                .filter(l -> l.getUserId() == currentUser.getUserId() &&
+                        l.getStatus().equals("active"))
+                .findFirst();
+    }
+
+    private void applyForLoan() {
+        // Check if user has any active loans
+        if (activeLoan().isPresent()) {
+            System.out.println("You already have an active loan!");
+            return;
+        }
+
+        System.out.println("== Apply for Loan ==");
+        System.out.print("Enter principal amount: ");
+        try {
+            BigDecimal principalAmount = new BigDecimal(scanner.nextLine());
+            if (principalAmount.compareTo(BigDecimal.ZERO) <= 0) {
+                System.out.println("Amount must be positive!");
+                return;
+            }
+
+            System.out.print("Enter interest rate (%): ");
+            double interestRate = Double.parseDouble(scanner.nextLine());
+            if (interestRate <= 0) {
+                System.out.println("Interest rate must be positive!");
+                return;
+            }
+
+            System.out.print("Enter repayment period (months): ");
+            int repaymentPeriod = Integer.parseInt(scanner.nextLine());
+            if (repaymentPeriod <= 0) {
+                System.out.println("Repayment period must be positive!");
+                return;
+            }
+
+            // Calculate total repayment amount from the amortization schedule
+            AmortizationSchedule schedule = AmortizationSchedule.of(principalAmount, interestRate, repaymentPeriod);
+            BigDecimal totalInterest = schedule.getTotalInterest();
+            BigDecimal totalRepayment = schedule.getTotalRepayment();
+            BigDecimal monthlyPayment = schedule.getMonthlyPayment();
+
+            System.out.println("\nLoan Summary:");
+            System.out.printf("Principal Amount: $%.2f\n", principalAmount);
+            System.out.printf("Total Interest: $%.2f\n", totalInterest);
+            System.out.printf("Total Repayment: $%.2f\n", totalRepayment);
+            System.out.printf("Monthly Payment: $%.2f\n", monthlyPayment);
+
+            System.out.print("\nConfirm loan application? (Y/N): ");
+            if (scanner.nextLine().equalsIgnoreCase("Y")) {
+                applyForLoan(principalAmount, interestRate, repaymentPeriod);
+            }
+        } catch (NumberFormatException e) {
+            System.out.println("Invalid input!");
+        }
+    }
+
+    // Records a new loan for the current user; the terms are assumed to be validated already
+    public boolean applyForLoan(BigDecimal principalAmount, double interestRate, int repaymentPeriod) {
+        long start = System.nanoTime();
+        try {
+            if (activeLoan().isPresent()) {
+                System.out.println("You already have an active loan!");
+                return false;
+            }
+
+            BigDecimal totalRepayment = AmortizationSchedule.of(principalAmount, interestRate, repaymentPeriod)
+                    .getTotalRepayment();
+            int loanId = loans.size() + 1;
+            Loan loan = new Loan(
+                    loanId,
+                    currentUser.getUserId(),
+                    principalAmount,
+                    interestRate,
+                    repaymentPeriod,
+                    totalRepayment,
+                    "active",
+                    LocalDate.now()
+            );
+
+            // Save to CSV
+            WriteAheadLog.Operation op = new WriteAheadLog.Operation("loan_apply")
+                    .append("loans.csv", String.format("%d,%d,%.2f,%.2f,%d,%.2f,%s,%s",
+                            loanId, currentUser.getUserId(), principalAmount, interestRate,
+                            repaymentPeriod, totalRepayment, "active", LocalDate.now()))
+                    .onCommit(() -> {
+                        loans.add(loan);
+                        currentUser.setLoan(totalRepayment);
+                        events.publish(new LedgerEvent(LedgerEvent.Type.LOAN_APPLIED, loan.getUserId(),
+                                loanId, totalRepayment, principalAmount.toPlainString()));
+                    });
+            if (commit(op, "Error saving loan data!")) {
+                System.out.println("Loan application successful!");
+                return true;
+            }
+            return false;
+        } finally {
+            loanApplyLatency.recordSince(start);
+        }
+    }
+
+    private void repayLoan() {
+        Optional<Loan> activeLoan = activeLoan();
+
+        if (activeLoan.isEmpty()) {
+            System.out.println("You don't have any active loans!");
+            return;
+        }
+
+        Loan loan = activeLoan.get();
+        System.out.println("== Repay Loan ==");
+        System.out.printf("Outstanding balance: $%.2f\n", loan.getOutstandingBalance());
+        System.out.print("Enter repayment amount: ");
+
+        try {
+            repayLoan(new BigDecimal(scanner.nextLine()));
+        } catch (NumberFormatException e) {
+            System.out.println("Invalid amount!");
+        }
+    }
+
+    public boolean repayLoan(BigDecimal repaymentAmount) {
+        long start = System.nanoTime();
+        try {
+            Optional<Loan> activeLoan = activeLoan();
+            if (activeLoan.isEmpty()) {
+                System.out.println("You don't have any active loans!");
+                return false;
+            }
+            Loan loan = activeLoan.get();
+
+            if (repaymentAmount.compareTo(BigDecimal.ZERO) <= 0) {
+                System.out.println("Amount must be positive!");
+                return false;
+            }
+
+            if (repaymentAmount.compareTo(loan.getOutstandingBalance()) > 0) {
+                System.out.println("Amount exceeds outstanding balance!");
+                return false;
+            }
+
+            // Process repayment
+            BigDecimal newBalance = loan.getOutstandingBalance().subtract(repaymentAmount);
+            String newStatus = newBalance.compareTo(BigDecimal.ZERO) == 0 ? "repaid" : loan.getStatus();
+
+            // Update CSV, writing the repaid loan with its new balance before touching it in memory
+            List<String> lines = new ArrayList<>();
+            lines.add("loan_id,user_id,principal_amount,interest_rate,repayment_period,outstanding_balance,status,created_at");
+            for (Loan l : loans) {
+                lines.add(String.format("%d,%d,%.2f,%.2f,%d,%.2f,%s,%s",
+                        l.getLoanId(), l.getUserId(), l.getPrincipalAmount(),
+                        l.getInterestRate(), l.getRepaymentPeriod(),
+                        l == loan ? newBalance : l.getOutstandingBalance(),
+                        l == loan ? newStatus : l.getStatus(),
+                        l.getCreatedAt()));
+            }
+            WriteAheadLog.Operation op = new WriteAheadLog.Operation("loan_repay")
+                    .rewrite("loans.csv", lines)
+                    .onCommit(() -> {
+                        loan.recordRepayment(repaymentAmount);
+                        loan.setStatus(newStatus);
+                        currentUser.setLoan(newBalance);
+                        events.publish(new LedgerEvent(LedgerEvent.Type.LOAN_REPAID, loan.getUserId(),
+                                loan.getLoanId(), repaymentAmount, newBalance.toPlainString()));
+                    });
+            if (!commit(op, "Error updating loan data!")) {
+                return false;
+            }
+
+            if (newStatus.equals("repaid")) {
+                System.out.println("Loan fully repaid!");
+            } else {
+                System.out.printf("Remaining balance: $%.2f\n", newBalance);
+            }
+            System.out.println("Repayment recorded successfully!");
+            return true;
+        } finally {
+            loanRepayLatency.recordSince(start);
+        }
+    }
+
+    private void handleDepositInterest() {
+        System.out.println("== Deposit Interest Predictor ==");
+        System.out.println("Available Banks:");
+        for (int bank = 0; bank < interestPredictor.bankCount(); bank++) {
+            System.out.printf("%s: %.2f%%\n", interestPredictor.bankName(bank), interestPredictor.rate(bank));
+        }
+        System.out.print("Enter bank name (or ALL to compare): ");
+        String bankName = scanner.nextLine();
+
+        if (bankName.equalsIgnoreCase("ALL")) {
+            long balance = currentUser.getBalance().unscaledValue().longValueExact();
+            long[] monthly = interestPredictor.monthlyInterestForAll(new long[]{balance})[0];
+            long[] yearly = interestPredictor.compoundedInterestForAll(new long[]{balance}, 12)[0];
+            System.out.printf("%-20s %12s %16s%n", "Bank", "Monthly", "12 mo compounded");
+            for (int bank = 0; bank < interestPredictor.bankCount(); bank++) {
+                System.out.printf("%-20s %12.2f %16.2f%n", interestPredictor.bankName(bank),
+                        BigDecimal.valueOf(monthly[bank], 2), BigDecimal.valueOf(yearly[bank], 2));
+            }
+            return;
+        }
+
+        BigDecimal interest = calculateDepositInterest(bankName);
+        if (interest.compareTo(BigDecimal.ZERO) > 0) {
+            System.out.printf("Predicted monthly interest: $%.2f\n", interest);
+        } else {
+            System.out.println("Invalid bank name!");
+        }
+    }
+
+    public BigDecimal calculateDepositInterest(String bankName) {
+        int bank = interestPredictor.indexOf(bankName);
+        if (bank < 0) {
+            return BigDecimal.ZERO;
+        }
+
+        long balance = currentUser.getBalance().unscaledValue().longValueExact();
+        return BigDecimal.valueOf(interestPredictor.monthlyInterestCents(balance, bank), 2);
+    }
+
+    public void run() {
+        // Menu actions hold the ledger's lock, so the sweep runs between them
+        scheduleSavingsSweep(task -> {
+            synchronized (this) {
+                task.run();
+            }
+        });
+        while (true) {
+            System.out.println("\n== Ledger System ==");
+            System.out.println("Login or Register:");
+            System.out.println("1. Login");
+            System.out.println("2. Register");
+            System.out.print(">");
+            String choice = scanner.nextLine();
+
+            if (choice.equals("2")) {
+                System.out.println("== Please fill in the form ==");
+                System.out.print("Name: ");
+                String name = scanner.nextLine();
+                System.out.print("Email: ");
+                String email = scanner.nextLine();
+                System.out.print("Password: ");
+                String password = scanner.nextLine();
+
+                boolean registered;
+                synchronized (this) {
+                    registered = register(name, email, password);
+                }
+                if (registered) {
+                    System.out.println("Register Successful!!!");
+                } else {
+                    System.out.println("Registration failed!");
+                    continue;
+                }
+            } else if (choice.equals("1")) {
+                System.out.println("== Please enter your email and password ==");
+                System.out.print("Email: ");
+                String email = scanner.nextLine();
+                System.out.print("Password: ");
+                String password = scanner.nextLine();
+
+                boolean loggedIn;
+                synchronized (this) {
+                    loggedIn = login(email, password);
+                }
+                if (loggedIn) {
+                    System.out.println("Login Successful!!!");
+                    mainMenu();
+                } else {
+                    System.out.println("Login failed!");
+                    continue;
+                }
+            }
+        }
+    }
+
+
+
+    private void mainMenu() {
+        // Check loan reminders on login
+        LoanReminder.checkLoanStatus(loans, currentUser.getUserId());
+
+        while (true) {
+            System.out.printf("\n== Welcome, %s ==\n", currentUser.getName());
+            System.out.printf("Balance: %.2f\n", currentUser.getBalance());
+            System.out.printf("Savings: %.2f\n", currentUser.getSavings());
+            System.out.printf("Loan: %.2f\n", currentUser.getLoan());
+            System.out.println("== Transaction ==");
+            System.out.println("1. Debit");
+            System.out.println("2. Credit");
+            System.out.println("3. History");
+            System.out.println("4. Savings");
+            System.out.println("5. Credit Loan");
+            System.out.println("6. Deposit Interest Predictor");
+            System.out.println("7. View Analytics");  // New option
+            System.out.println("8. Logout");
+            System.out.print(">");
+
+            String choice = scanner.nextLine();
+
+            synchronized (this) {
+                switch (choice) {
+                    case "1":
+                        handleDebit();
+                        break;
+                    case "2":
+                        handleCredit();
+                        break;
+                    case "3":
+                        handleHistory();  // Updated method
+                        break;
+                    case "4":
+                        handleSavings();
+                        break;
+                    case "5":
+                        handleCreditLoan();
+                        break;
+                    case "6":
+                        handleDepositInterest();
+                        break;
+                    case "7":
+                        handleAnalytics();  // New method
+                        break;
+                    case "8":
+                        logout();
+                        System.out.println("Thank you for using \"Ledger System\"");
+                        return;
+                    default:
+                        System.out.println("Invalid option!");
+                }
+            }
+        }
+    }
+
+    // Add new method to handle the history menu
+    private void handleHistory() {
+        System.out.println("\n== History Options ==");
+        System.out.println("1. View All History");
+        System.out.println("2. Filter and Sort");
+        System.out.print("Choice: ");
+
+        String choice = scanner.nextLine();
+        switch (choice) {
+            case "1":
+                viewHistory();
+                break;
+            case "2":
+                viewFilteredHistory();
+                break;
+            default:
+                System.out.println("Invalid option!");
+        }
+    }
+
+    // Add new method to handle analytics
+    // The system-wide report covers every user's totals, so it is only offered by operator tools
+    // such as LedgerReplica and LoadTestDriver
+    private void handleAnalytics() {
+        while (true) {
+            System.out.println("\n== Analytics ==");
+            System.out.println("1. View Spending Trends");
+            System.out.println("2. View Spending Distribution");
+            System.out.println("3. View Savings Growth");
+            System.out.println("4. View Loan Progress");
+            System.out.println("5. Back to Main Menu");
+            System.out.print("Choice: ");
+
+            String choice = scanner.nextLine();
+
+            switch (choice) {
+                case "1": {
+                    long start = System.nanoTime();
+                    DataVisualization.showSpendingTrends(session().monthlySpending());
+                    analyticsLatency.recordSince(start);
+                    break;
+                }
+                case "2": {
+                    long start = System.nanoTime();
+                    DataVisualization.showSpendingDistribution(session().categorySpending());
+                    DataVisualization.showExpensePercentiles(session().spending());
+                    analyticsLatency.recordSince(start);
+                    break;
+                }
+                case "3":
+                    showSavingsProjection();
+                    break;
+                case "4":
+                    DataVisualization.showLoanRepayment(activeLoan().orElse(null));
+                    break;
+                case "5":
+                    return;
+                default:
+                    System.out.println("Invalid option!");
+            }
+        }
+    }
+
+    private void showSavingsProjection() {
+        System.out.print("Projection horizon in years (default 1): ");
+        String input = scanner.nextLine().trim();
+        int years;
+        try {
+            years = input.isEmpty() ? 1 : Integer.parseInt(input);
+        } catch (NumberFormatException e) {
+            System.out.println("Invalid number of years!");
+            return;
+        }
+        if (years <= 0 || years > 50) {
+            System.out.println("Horizon must be between 1 and 50 years!");
+            return;
+        }
+
+        LocalDate historyStart = LocalDate.now().withDayOfMonth(1).minusMonths(SavingsProjection.HISTORY_MONTHS - 1);
+        long[] history = SavingsProjection.monthlyDebitCents(userTransactions(historyStart),
+                currentUser.getUserId(), LocalDate.now(), SavingsProjection.HISTORY_MONTHS);
+        long expectedDebit = SavingsProjection.expectedMonthlyDebit(history,
+                SavingsProjection.Estimator.MOVING_AVERAGE);
+
+        DataVisualization.showSavingsGrowth(
+                currentUser.getSavings(),
+                currentUser.getSavingsPercentage(),
+                BigDecimal.valueOf(expectedDebit, 2),
+                years * 12);
+    }
+
+    private void handleDebit() {
+        System.out.println("== Debit ==");
+        System.out.print("Enter amount: ");
+        String amount = scanner.nextLine();
+        System.out.print("Enter description: ");
+        String description = scanner.nextLine();
+        debit(amount, description);
+    }
+
+    public boolean debit(String amount, String description) {
+        long start = System.nanoTime();
+        try {
+            // The debit and its savings split are logged as one operation
+            WriteAheadLog.Operation op = new WriteAheadLog.Operation("debit");
+            if (!prepareTransaction(op, "debit", amount, description)) {
+                return false;
+            }
+
+            // Process savings if active
+            BigDecimal savingsAmount = null;
+            if (currentUser.isSavingsActive()) {
+                BigDecimal debitAmount = new BigDecimal(amount);
+                savingsAmount = debitAmount
+                        .multiply(BigDecimal.valueOf(currentUser.getSavingsPercentage()))
+                        .divide(BigDecimal.valueOf(100), 2, RoundingMode.HALF_UP);
+                prepareSavingsTransaction(op, savingsAmount);
+            }
+
+            if (!commit(op, "Error saving transaction!")) {
+                return false;
+            }
+            System.out.println("Debit Successfully Recorded!!!");
+            if (savingsAmount != null) {
+                System.out.printf("$%.2f transferred to savings (%d%% of debit)%n",
+                        savingsAmount, currentUser.getSavingsPercentage());
+            }
+            return true;
+        } finally {
+            transactionLatency.recordSince(start);
+        }
+    }
+
+    // Moves amount from the balance to savings as a "Savings Deposit" credit in transactions.csv and a
+    // deposited row in savings.csv with the same id, so a reload sees the balance already reduced
+    private void prepareSavingsTransaction(WriteAheadLog.Operation op, BigDecimal amount) {
+        // The debit in the same operation takes nextTransactionId()
+        int transactionId = nextTransactionId() + 1;
+        int percentage = currentUser.getSavingsPercentage();
+        LocalDate date = LocalDate.now();
+        Transaction deposit = new Transaction(transactionId, currentUser.getUserId(), "credit", amount,
+                SAVINGS_DEPOSIT, date);
+        op.append("transactions.csv", transactionId + "," + currentUser.getUserId() + ",credit," +
+                deposit.getAmount().toPlainString() + "," + SAVINGS_DEPOSIT + "," + date);
+        op.append("savings.csv", String.format("%d,%d,deposited,%d,%s,%s",
+                transactionId,
+                currentUser.getUserId(),
+                percentage,
+                deposit.getAmount().toPlainString(),
+                date));
+
+        op.onCommit(() -> {
+            long cents = deposit.getAmount().unscaledValue().longValueExact();
+            transactions.add(deposit);
+            indexBalance(deposit);
+            sessions.recordTransaction(deposit);
+            profiles.record(deposit.getUserId(), false, cents, deposit.getCategoryId());
+            accounts.setSavingsCents(deposit.getUserId(), accounts.savingsCents(deposit.getUserId()) + cents);
+            events.publish(new LedgerEvent(LedgerEvent.Type.SAVINGS_DEPOSITED, deposit.getUserId(),
+                    transactionId, deposit.getAmount(), String.valueOf(percentage)));
+        });
+    }
+
+        private void handleCredit() {
+            System.out.println("== Credit ==");
+            System.out.print("Enter amount: ");
+            String amount = scanner.nextLine();
+            System.out.print("Enter description: ");
+            String description = scanner.nextLine();
+
+            if (recordTransaction("credit", amount, description)) {
+                System.out.println("Credit Successfully Recorded!!!");
+            }
+        }
+
+    private void handleSavings() {
+        System.out.println("== Savings ==");
+        System.out.print("Are you sure you want to activate it? (Y/N) : ");
+        String activate = scanner.nextLine();
+
+        if (activate.equalsIgnoreCase("Y")) {
+            System.out.print("Please enter the percentage you wish to deduct from the next debit: ");
+            try {
+                int percentage = Integer.parseInt(scanner.nextLine());
+                if (setSavings(percentage)) {
+                    System.out.println("Savings Settings added successfully!!!");
+                }
+            } catch (NumberFormatException e) {
+                System.out.println("Invalid percentage!");
+            }
+        }
+    }
+    // Stamps today's date as the user's last login
+    private void recordLogin() {
+        try {
+            LocalDate currentDate = LocalDate.now();
+            WriteAheadLog.Operation op = new WriteAheadLog.Operation("login");
+            updateLastLoginDateInFile(op);
+            op.onCommit(() -> {
+                currentUser.setLastLoginDate(currentDate);
+                events.publish(new LedgerEvent(LedgerEvent.Type.LAST_LOGIN_UPDATED, currentUser.getUserId(),
+                        0, null, currentDate.toString()));
+            });
+            commit(op, "Error updating last login date!");
+        } catch (Exception e) {
+            System.out.println("Error updating last login date: " + e.getMessage());
+        }
+    }
+
+    // Moves every user's savings back to their balance in one operation, as a "Monthly Savings
+    // Transfer" debit and a matching transfer row in savings.csv per user, and records date's month
+    // as swept. Returns the number of users swept, or -1 if the commit failed.
+    public int sweepMonthlySavings(LocalDate date) {
+        long start = System.nanoTime();
+        try {
+            IntStream.Builder saverIds = IntStream.builder();
+            accounts.forEachAccount(userId -> {
+                if (accounts.savingsCents(userId) > 0) saverIds.add(userId);
+            });
+            int[] savers = saverIds.build().toArray();
+
+            int firstId = nextTransactionId();
+            List<Transaction> transfers = IntStream.range(0, savers.length).parallel()
+                    .mapToObj(i -> new Transaction(firstId + i, savers[i], "debit",
+                            BigDecimal.valueOf(accounts.savingsCents(savers[i]), 2), "Monthly Savings Transfer", date))
+                    .collect(Collectors.toList());
+
+            WriteAheadLog.Operation op = new WriteAheadLog.Operation("savings-sweep");
+            if (!transfers.isEmpty()) {
+                op.append("transactions.csv", transfers.parallelStream()
+                        .map(t -> t.getTransactionId() + "," + t.getUserId() + "," + t.getType() + ","
+                                + t.getAmount().toPlainString() + "," + t.getDescription() + "," + t.getDate())
+                        .collect(Collectors.joining(System.lineSeparator())));
+                // Transfer rows bring each user's savings rows back to a zero sum
+                op.append("savings.csv", transfers.parallelStream()
+                        .map(t -> t.getTransactionId() + "," + t.getUserId() + ",transferred,0,"
+                                + t.getAmount().negate().toPlainString() + "," + t.getDate())
+                        .collect(Collectors.joining(System.lineSeparator())));
+            }
+            recordSweep(op, YearMonth.from(date)).onCommit(() -> {
+                for (Transaction transaction : transfers) {
+                    int userId = transaction.getUserId();
+                    long cents = transaction.getAmount().unscaledValue().longValueExact();
+                    transactions.add(transaction);
+                    indexBalance(transaction);
+                    accounts.setSavingsCents(userId, 0);
+                    sessions.recordTransaction(transaction);
+                    profiles.record(userId, true, cents, transaction.getCategoryId());
+                    events.publish(new LedgerEvent(LedgerEvent.Type.SAVINGS_TRANSFERRED,
+                            userId, transaction.getTransactionId(), transaction.getAmount(), null));
+                }
+            });
+            if (!commit(op, "Error processing savings sweep!")) return -1;
+            sweptAccounts.add(transfers.size());
+            return transfers.size();
+        } finally {
+            sweepLatency.recordSince(start);
+        }
+    }
+
+    // Runs the sweeps due since the last one, oldest first; all savings go in the first of them. A
+    // ledger that has never swept starts counting from the current month.
+    public void sweepMissedMonths() {
+        YearMonth current = YearMonth.now();
+        if (lastSweptMonth == null) {
+            commit(recordSweep(new WriteAheadLog.Operation("savings-sweep"), current), "Error processing savings sweep!");
+            return;
+        }
+        for (YearMonth month = lastSweptMonth.plusMonths(1); !month.isAfter(current); month = month.plusMonths(1)) {
+            if (sweepMonthlySavings(month.atDay(1)) < 0) return;
+        }
+    }
+
+    private WriteAheadLog.Operation recordSweep(WriteAheadLog.Operation op, YearMonth month) {
+        return op.rewrite(SWEEP_FILE, Arrays.asList("last_swept_month", month.toString()))
+                .onCommit(() -> lastSweptMonth = month);
+    }
+
+    // Runs the sweeps missed while the ledger was down, then sweeps at the start of every month.
+    // runner must give the sweep sole use of the ledger, e.g. by taking the lock its callers share or
+    // by submitting it to the ledger's sequencer.
+    public void scheduleSavingsSweep(Consumer<Runnable> runner) {
+        sweepTimer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "ledger-savings-sweep");
+            thread.setDaemon(true);
+            return thread;
+        });
+        sweepTimer.execute(() -> runner.accept(this::sweepMissedMonths));
+        scheduleNextSweep(runner);
+    }
+
+    private void scheduleNextSweep(Consumer<Runnable> runner) {
+        LocalDateTime nextMonth = LocalDate.now().withDayOfMonth(1).plusMonths(1).atStartOfDay();
+        long delay = Duration.between(LocalDateTime.now(), nextMonth).toMillis();
+        sweepTimer.schedule(() -> {
+            runner.accept(this::sweepMissedMonths);
+            scheduleNextSweep(runner);
+        }, Math.max(0, delay), TimeUnit.MILLISECONDS);
+    }
+
+
+    public void viewFilteredHistory() {
+            System.out.println("\n== History Filters ==");
+            System.out.println("1. Filter by Date Range");
+            System.out.println("2. Filter by Transaction Type");
+            System.out.println("3. Filter by Amount Range");
+            System.out.println("4. Sort by Date");
+            System.out.println("5. Sort by Amount");
+            System.out.println("6. View All");
+            System.out.print("Choose option: ");
+        String choice = scanner.nextLine();
+
+        switch (choice) {
+            case "1":
+                filterByDateRange();
+                break;
+            case "2":
+                filterByType(userTransactions());
+                break;
+            case "3":
+                filterByAmountRange(userTransactions());
+                break;
+            case "4":
+                sortByDate(userTransactions());
+                break;
+            case "5":
+                sortByAmount(userTransactions());
+                break;
+            case "6":
+                displayTransactions(userTransactions());
+                break;
+            default:
+                System.out.println("Invalid option!");
+        }
+    }
+
+    private void filterByDateRange() {
+        System.out.println("\nEnter date range (YYYY-MM-DD):");
+        System.out.print("Start date: ");
+        String startStr = scanner.nextLine();
+        System.out.print("End date: ");
+        String endStr = scanner.nextLine();
+
+        try {
+            LocalDate startDate = LocalDate.parse(startStr);
+            LocalDate endDate = LocalDate.parse(endStr);
+
+            displayTransactions(filterByDateRange(userTransactions(startDate), startDate, endDate));
+        } catch (DateTimeParseException e) {
+            System.out.println("Invalid date format!");
+        }
+    }
+
+    private void filterByType(List<Transaction> transactions) {
+        System.out.println("\nSelect type:");
+        System.out.println("1. Debit");
+        System.out.println("2. Credit");
+        System.out.print("Choice: ");
+        String choice = scanner.nextLine();
+
+        displayTransactions(filterByType(transactions, choice.equals("1") ? "debit" : "credit"));
+    }
+
+    private void filterByAmountRange(List<Transaction> transactions) {
+        System.out.print("\nMinimum amount: ");
+        BigDecimal min = new BigDecimal(scanner.nextLine());
+        System.out.print("Maximum amount: ");
+        BigDecimal max = new BigDecimal(scanner.nextLine());
+
+        displayTransactions(filterByAmountRange(transactions, min, max));
+    }
+
+    private void sortByDate(List<Transaction> transactions) {
+        System.out.println("\n1. Newest First");
+        System.out.println("2. Oldest First");
+        System.out.print("Choice: ");
+        String choice = scanner.nextLine();
+
+        displayTransactions(sortByDate(transactions, choice.equals("1")));
+    }
+
+    private void sortByAmount(List<Transaction> transactions) {
+        System.out.println("\n1. Highest First");
+        System.out.println("2. Lowest First");
+        System.out.print("Choice: ");
+        String choice = scanner.nextLine();
+        System.out.print("How many (Enter for all): ");
+        String limit = scanner.nextLine().trim();
+
+        if (limit.isEmpty()) {
+            displayTransactions(sortByAmount(transactions, choice.equals("1")));
+            return;
+        }
+        try {
+            displayTransactions(topByAmount(transactions, Integer.parseInt(limit), choice.equals("1")));
+        } catch (NumberFormatException e) {
+            System.out.println("Invalid input!");
+        }
+    }
+
+    static List<Transaction> filterByDateRange(List<Transaction> transactions, LocalDate startDate, LocalDate endDate) {
+        return transactions.stream()
+                .filter(t -> !t.getDate().isBefore(startDate) && !t.getDate().isAfter(endDate))
+                .collect(Collectors.toList());
+    }
+
+    static List<Transaction> filterByType(List<Transaction> transactions, String type) {
+        return transactions.stream()
+                .filter(t -> t.getType().equals(type))
+                .collect(Collectors.toList());
+    }
+
+    static List<Transaction> filterByAmountRange(List<Transaction> transactions, BigDecimal min, BigDecimal max) {
+        return transactions.stream()
+                .filter(t -> t.getAmount().compareTo(min) >= 0 && t.getAmount().compareTo(max) <= 0)
+                .collect(Collectors.toList());
+    }
+
+    static List<Transaction> sortByDate(List<Transaction> transactions, boolean newestFirst) {
+        return transactions.stream()
+                .sorted(newestFirst
+                        ? Comparator.comparing(Transaction::getDate).reversed()
+                        : Comparator.comparing(Transaction::getDate))
+                .collect(Collectors.toList());
+    }
+
+    static List<Transaction> sortByAmount(List<Transaction> transactions, boolean highestFirst) {
+        return transactions.stream()
+                .sorted(highestFirst
+                        ? Comparator.comparing(Transaction::getAmount).reversed()
+                        : Comparator.comparing(Transaction::getAmount))
+                .collect(Collectors.toList());
+    }
+
+    // The k largest (or smallest) transactions by amount, in that order; a bounded heap keeps only
+    // the current top k, so this costs O(n log k) instead of sorting the whole history
+    static List<Transaction> topByAmount(List<Transaction> transactions, int k, boolean highestFirst) {
+        if (k <= 0) return new ArrayList<>();
+        Comparator<Transaction> order = highestFirst
+                ? Comparator.comparing(Transaction::getAmount).reversed()
+                : Comparator.comparing(Transaction::getAmount);
+        // The head of the heap is the weakest transaction kept so far
+        PriorityQueue<Transaction> heap = new PriorityQueue<>(k + 1, order.reversed());
+        for (Transaction t : transactions) {
+            if (heap.size() < k) {
+                heap.add(t);
+            } else if (order.compare(t, heap.peek()) < 0) {
+                heap.poll();
+                heap.add(t);
+            }
+        }
+        List<Transaction> top = new ArrayList<>(heap);
+        top.sort(order);
+        return top;
+    }
+
+    public void logout() {
+        currentUser = null;
+    }
+
+    SystemAnalytics.Report systemReport() {
+        long start = System.nanoTime();
+        try {
+            SystemAnalytics.Report recent = SystemAnalytics.analyze(SystemAnalytics.Columns.of(transactions), loans, accounts, spending);
+            return archive.isEmpty() ? recent : SystemAnalytics.merge(Arrays.asList(recent, archived));
+        } finally {
+            analyticsLatency.recordSince(start);
+        }
+    }
+
+    // Copies what reads need as of sequence, to be read off the ledger's thread
+    LedgerReadView readView(long sequence) {
+        transactions.indexUsers();
+        List<Loan> loanCopies = new ArrayList<>(loans.size());
+        for (Loan loan : loans) loanCopies.add(loan.copy());
+        return new LedgerReadView(sequence, transactions.copy(), loanCopies, accounts.savingsTotals(),
+                spending.copy(), archive, archived);
+    }
+
+    // The ledger holds one session at a time; the load-test driver swaps between simulated users
+    User currentUser() {
+        return currentUser;
+    }
+
+    void resumeSession(User user) {
+        currentUser = user;
+    }
+
+    void invalidateSession(int userId) {
+        sessions.invalidate(userId);
+    }
+
+    int userCount() {
+        return emailIndex.size();
+    }
+
+    boolean hasUser(String email) {
+        return findUser(email) != null;
+    }
+
+    // Current user's transactions in recorded order
+    List<Transaction> userTransactions() {
+        return session().transactions();
+    }
+
+    // Current user's transactions, at least all of those dated from onwards; the archive is only
+    // read if from falls before its cutoff
+    List<Transaction> userTransactions(LocalDate from) {
+        return from.isBefore(archive.cutoff()) ? session().transactions() : session().recentTransactions();
+    }
+
+    static void displayTransactions(List<Transaction> transactions) {
+        if (transactions.isEmpty()) {
+            System.out.println("\nNo transactions found!");
+            return;
+        }
+
+        // Use the same format as viewHistory() but with filtered transactions
+        printTransactionTable(transactions);
+    }
+
+    // Renders the table with a running balance into one buffer and hands it to the pager; amounts
+    // already have two decimals, so they are appended as they are instead of through a format
+    private static void printTransactionTable(List<Transaction> transactions) {
+        StringBuilder table = new StringBuilder(96 * (transactions.size() + 4));
+        Formatter formatter = new Formatter(table);
+        table.append(TABLE_SEPARATOR);
+        formatter.format(TABLE_ROW, "Date", "Description", "Debit", "Credit", "Balance");
+        table.append(TABLE_SEPARATOR);
+
+        BigDecimal runningBalance = BigDecimal.ZERO;
+        for (Transaction t : transactions) {
+            String amount = t.getAmount().toPlainString();
+            if (t.getType().equals("debit")) {
+                runningBalance = runningBalance.add(t.getAmount());
+                formatter.format(TABLE_ROW, t.getDate(), t.getDescription(), amount, "", runningBalance.toPlainString());
+            } else {
+                runningBalance = runningBalance.subtract(t.getAmount());
+                formatter.format(TABLE_ROW, t.getDate(), t.getDescription(), "", amount, runningBalance.toPlainString());
+            }
+        }
+        table.append(TABLE_SEPARATOR);
+        Console.page(table);
+    }
+
+
+}
\ No newline at end of file
@@ -1,4 +1,8 @@
-import java.math.BigDecimal;
+package ledger.service;
+
+import ledger.model.AmortizationSchedule;
+import ledger.model.Loan;
+
 import java.time.LocalDate;
 import java.time.temporal.ChronoUnit;
 import java.util.List;
@@ -24,17 +28,26 @@ public class LoanReminder {
             return;
         }
 
-        long daysUntilDue = ChronoUnit.DAYS.between(now, dueDate);
+        // Remind about the next scheduled installment rather than the final due date
+        AmortizationSchedule schedule = loan.getSchedule();
+        if (schedule.isComplete()) {
+            return;
+        }
+        LocalDate installmentDue = schedule.getNextDueDate(loan.getCreatedAt());
+        long daysUntilDue = ChronoUnit.DAYS.between(now, installmentDue);
         if (daysUntilDue <= WARNING_DAYS) {
             System.out.println("\n=== LOAN PAYMENT REMINDER ===");
-            System.out.printf("Your loan payment of $%.2f is due in %d days!%n",
+            if (daysUntilDue < 0) {
+                System.out.printf("Your loan payment of $%.2f was due on %s!%n",
+                        schedule.getAmountDue(), installmentDue);
+            } else {
+                System.out.printf("Your loan payment of $%.2f is due in %d days!%n",
+                        schedule.getAmountDue(), daysUntilDue);
+            }
+            System.out.printf("Outstanding balance: $%.2f | Installment %d of %d%n",
                     loan.getOutstandingBalance(),
-                    daysUntilDue);
-
-            // Calculate monthly payment suggestion
-            BigDecimal monthlyPayment = loan.getOutstandingBalance()
-                    .divide(BigDecimal.valueOf(loan.getRepaymentPeriod()), 2, BigDecimal.ROUND_HALF_UP);
-            System.out.printf("Suggested monthly payment: $%.2f%n", monthlyPayment);
+                    schedule.getNextInstallment() + 1,
+                    schedule.getInstallments());
         }
     }
 }
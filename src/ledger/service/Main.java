@@ -0,0 +1,14 @@
+package ledger.service;
+
+import ledger.metrics.Metrics;
+
+public class Main {
+    public static void main(String[] args) {
+        Metrics.exportFromProperties();
+        Console.install();
+        LedgerSystem ledger = new LedgerSystem();
+        // The session ends when input does or the user interrupts it; either way the log is closed cleanly
+        Runtime.getRuntime().addShutdownHook(new Thread(ledger::close, "ledger-close"));
+        ledger.run();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,199 @@
+package ledger.service;
+
+import ledger.analytics.DepositInterestPredictor;
+import ledger.analytics.SystemAnalytics;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+// Splits the ledger into shards by userId, each a LedgerSystem over its own directory (shard-0,
+// shard-1, ...) with its own CSVs, write-ahead log and flusher thread, email index and caches.
+// Shard k owns the userIds u with (u - 1) % shards == k, so ids stay unique across shards.
+// Transaction and loan ids are only unique within a shard.
+//
+// New users go to the shard their email hashes to; login finds a user by checking that shard's
+// email index first and then the others, so data partitioned by userId is found as well.
+// Per-user operations run on the logged-in user's shard and never touch another; system-wide
+// analytics runs on every shard in parallel and merges the results.
+//
+// Each shard directory is a complete ledger, so shards can also be served by separate processes.
+public class ShardedLedger implements Closeable {
+    private final LedgerSystem[] shards;
+    private LedgerSystem current;
+
+    private ShardedLedger(LedgerSystem[] shards) {
+        this.shards = shards;
+    }
+
+    // A single shard uses dir itself, so an unsharded data directory opens unchanged
+    public static ShardedLedger open(Path dir, int shardCount) throws IOException {
+        LedgerSystem[] shards = new LedgerSystem[shardCount];
+        for (int k = 0; k < shardCount; k++) {
+            Path shardDir = shardCount == 1 ? dir : shardDirectory(dir, k);
+            Files.createDirectories(shardDir);
+            shards[k] = new LedgerSystem(shardDir, new Scanner(""), k, shardCount);
+        }
+        return new ShardedLedger(shards);
+    }
+
+    public static Path shardDirectory(Path dir, int shard) {
+        return dir.resolve("shard-" + shard);
+    }
+
+    public static int shardOf(int userId, int shardCount) {
+        return (userId - 1) % shardCount;
+    }
+
+    public int shardCount() {
+        return shards.length;
+    }
+
+    public LedgerSystem shard(int shard) {
+        return shards[shard];
+    }
+
+    // Shard holding email, or the shard a new registration for it would go to
+    public int shardFor(String email) {
+        int home = Math.floorMod(email.hashCode(), shards.length);
+        for (int i = 0; i < shards.length; i++) {
+            int k = (home + i) % shards.length;
+            synchronized (shards[k]) {
+                if (shards[k].hasUser(email)) return k;
+            }
+        }
+        return home;
+    }
+
+    public int userCount() {
+        int count = 0;
+        for (LedgerSystem shard : shards) {
+            synchronized (shard) {
+                count += shard.userCount();
+            }
+        }
+        return count;
+    }
+
+    public boolean register(String name, String email, String password) {
+        int k = shardFor(email);
+        // The home shard checks for a duplicate again under its lock, which settles concurrent registrations
+        synchronized (shards[k]) {
+            return shards[k].register(name, email, password);
+        }
+    }
+
+    public boolean login(String email, String password) {
+        LedgerSystem shard = shards[shardFor(email)];
+        synchronized (shard) {
+            if (!shard.login(email, password)) return false;
+        }
+        current = shard;
+        return true;
+    }
+
+    public boolean recordTransaction(String type, String amount, String description) {
+        synchronized (current) {
+            return current.recordTransaction(type, amount, description);
+        }
+    }
+
+    public boolean debit(String amount, String description) {
+        synchronized (current) {
+            return current.debit(amount, description);
+        }
+    }
+
+    public void viewHistory() {
+        synchronized (current) {
+            current.viewHistory();
+        }
+    }
+
+    public boolean applyForLoan(java.math.BigDecimal principal, double rate, int months) {
+        synchronized (current) {
+            return current.applyForLoan(principal, rate, months);
+        }
+    }
+
+    public boolean repayLoan(java.math.BigDecimal amount) {
+        synchronized (current) {
+            return current.repayLoan(amount);
+        }
+    }
+
+    public void logout() {
+        synchronized (current) {
+            current.logout();
+        }
+        current = null;
+    }
+
+    public SystemAnalytics.Report systemReport() {
+        List<SystemAnalytics.Report> reports = IntStream.range(0, shards.length).parallel()
+                .mapToObj(k -> {
+                    synchronized (shards[k]) {
+                        return shards[k].systemReport();
+                    }
+                })
+                .collect(Collectors.toList());
+        return reports.size() == 1 ? reports.get(0) : SystemAnalytics.merge(reports);
+    }
+
+    // Sweeps each shard's savings at the start of every month, holding that shard's lock
+    public void scheduleSavingsSweeps() {
+        for (LedgerSystem shard : shards) {
+            shard.scheduleSavingsSweep(task -> {
+                synchronized (shard) {
+                    task.run();
+                }
+            });
+        }
+    }
+
+    @Override
+    public void close() {
+        for (LedgerSystem shard : shards) shard.close();
+    }
+
+    // Splits an unsharded data directory into shard directories under target, keeping every row
+    // with the shard that owns its userId
+    public static void partition(Path source, Path target, int shardCount) throws IOException {
+        String[][] files = {{"users.csv", "0"}, {"transactions.csv", "1"}, {"savings.csv", "1"}, {"loans.csv", "1"}};
+        for (int k = 0; k < shardCount; k++) {
+            Path shardDir = shardDirectory(target, k);
+            Files.createDirectories(shardDir);
+            Path banks = source.resolve(DepositInterestPredictor.BANKS_FILE);
+            if (Files.exists(banks)) {
+                Files.copy(banks, shardDir.resolve(DepositInterestPredictor.BANKS_FILE), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+
+        for (String[] file : files) {
+            int userColumn = Integer.parseInt(file[1]);
+            Writer[] writers = new Writer[shardCount];
+            try (BufferedReader reader = Files.newBufferedReader(source.resolve(file[0]))) {
+                String header = reader.readLine();
+                for (int k = 0; k < shardCount; k++) {
+                    writers[k] = new BufferedWriter(new FileWriter(shardDirectory(target, k).resolve(file[0]).toFile()),
+                            1 << 16);
+                    writers[k].write(header + "\n");
+                }
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.isBlank()) continue;
+                    int userId = Integer.parseInt(line.split(",", userColumn + 2)[userColumn]);
+                    Writer writer = writers[shardOf(userId, shardCount)];
+                    writer.write(line);
+                    writer.write('\n');
+                }
+            } finally {
+                for (Writer writer : writers) {
+                    if (writer != null) writer.close();
+                }
+            }
+        }
+    }
+}
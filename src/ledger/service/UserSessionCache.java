@@ -0,0 +1,144 @@
+package ledger.service;
+
+import ledger.analytics.DataVisualization;
+import ledger.analytics.SpendingDigest;
+import ledger.metrics.Metrics;
+import ledger.model.Transaction;
+
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+// Per-user transactions and the rollups derived from them, kept for recently active users so a
+// repeat history view or report does not decode them again. Entries are evicted least recently used
+// once there are more than maxEntries, and are reloaded after ttl even if nothing changed.
+//
+// Writes keep entries exact: a new transaction is appended to its owner's entry and drops the
+// rollups computed from the old list.
+public class UserSessionCache {
+    private static final LongAdder hits = Metrics.counter("ledger.sessions.hits");
+    private static final LongAdder misses = Metrics.counter("ledger.sessions.misses");
+    private static final LongAdder evictions = Metrics.counter("ledger.sessions.evictions");
+    private static final LongAdder invalidations = Metrics.counter("ledger.sessions.invalidations");
+
+    public static class Session {
+        final int userId;
+        final long loadedAt = System.nanoTime();
+        final List<Transaction> transactions;  // recent, in recorded order
+        Supplier<List<Transaction>> archiveReader = Collections::emptyList;
+        private List<Transaction> archived;    // read on first use
+        private Map<String, BigDecimal> monthlySpending;
+        private Map<String, BigDecimal> categorySpending;
+        private SpendingDigest spending;       // expense sizes, kept current by add once built
+
+        Session(int userId, List<Transaction> transactions) {
+            this.userId = userId;
+            this.transactions = transactions;
+        }
+
+        public synchronized Map<String, BigDecimal> monthlySpending() {
+            if (monthlySpending == null) monthlySpending = DataVisualization.monthlySpending(transactions());
+            return monthlySpending;
+        }
+
+        public synchronized Map<String, BigDecimal> categorySpending() {
+            if (categorySpending == null) categorySpending = DataVisualization.categorySpending(transactions());
+            return categorySpending;
+        }
+
+        // Approximate percentiles of the user's expense sizes, archived ones included; savings deposits
+        // are not expenses
+        public synchronized SpendingDigest spending() {
+            if (spending == null) {
+                spending = new SpendingDigest();
+                for (Transaction t : transactions()) {
+                    if (t.isExpense()) spending.add(t.getAmount().unscaledValue().longValueExact());
+                }
+            }
+            return spending.copy();
+        }
+
+        synchronized void add(Transaction transaction) {
+            transactions.add(transaction);
+            monthlySpending = null;
+            categorySpending = null;
+            if (spending != null && transaction.isExpense()) {
+                spending.add(transaction.getAmount().unscaledValue().longValueExact());
+            }
+        }
+
+        // Archived and recent transactions in recorded order
+        public synchronized List<Transaction> transactions() {
+            if (archived == null) archived = archiveReader.get();
+            if (archived.isEmpty()) return new ArrayList<>(transactions);
+            List<Transaction> all = new ArrayList<>(archived.size() + transactions.size());
+            all.addAll(archived);
+            all.addAll(transactions);
+            all.sort(Comparator.comparingInt(Transaction::getTransactionId));
+            return all;
+        }
+
+        // Transactions that are not archived, enough for queries that start at or after the archive cutoff
+        public synchronized List<Transaction> recentTransactions() {
+            return new ArrayList<>(transactions);
+        }
+    }
+
+    private final int maxEntries;
+    private final long ttlNanos;
+    private final LinkedHashMap<Integer, Session> entries;
+
+    public UserSessionCache(int maxEntries, long ttl, TimeUnit unit) {
+        this.maxEntries = maxEntries;
+        this.ttlNanos = unit.toNanos(ttl);
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Session> eldest) {
+                if (size() <= UserSessionCache.this.maxEntries) return false;
+                evictions.increment();
+                return true;
+            }
+        };
+    }
+
+    // Sized from ledger.sessions.max (default 10000) and ledger.sessions.ttl in seconds (default 600)
+    public static UserSessionCache fromProperties() {
+        return new UserSessionCache(Integer.getInteger("ledger.sessions.max", 10_000),
+                Long.getLong("ledger.sessions.ttl", 600), TimeUnit.SECONDS);
+    }
+
+    // Returns the cached session or builds one with loader. Loading holds the cache lock so a write
+    // cannot slip in between building an entry and storing it.
+    public synchronized Session get(int userId, Function<Integer, Session> loader) {
+        Session session = entries.get(userId);
+        if (session != null && System.nanoTime() - session.loadedAt < ttlNanos) {
+            hits.increment();
+            return session;
+        }
+        if (session != null) evictions.increment();
+        misses.increment();
+        session = loader.apply(userId);
+        entries.put(userId, session);
+        return session;
+    }
+
+    public synchronized void recordTransaction(Transaction transaction) {
+        Session session = entries.get(transaction.getUserId());
+        if (session != null) session.add(transaction);
+    }
+
+    public synchronized void invalidate(int userId) {
+        if (entries.remove(userId) != null) invalidations.increment();
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    public synchronized long size() {
+        return entries.size();
+    }
+}
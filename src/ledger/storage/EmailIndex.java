@@ -0,0 +1,240 @@
+package ledger.storage;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+
+// Open-addressing hash table in users.idx mapping each email to the byte offset of its row in
+// users.csv, so a user can be read on demand instead of loading every row at startup.
+//
+// Slots are 16 bytes (email hash, row offset) in a memory-mapped file kept at most half full.
+// Lookups confirm the email on the row itself, so a hash collision just continues probing.
+// The header records how much of users.csv is indexed and whether the index was closed cleanly;
+// a missing, unclean or mismatched index is rebuilt with one sequential scan of users.csv.
+public class EmailIndex implements Closeable {
+    public static final String INDEX_FILE = "users.idx";
+    private static final int MAGIC = 0x4C494458; // "LIDX"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 64;
+    private static final int SLOT_BYTES = 16;
+    private static final int MIN_SLOTS = 1 << 10;
+    // One mapping covers at most 2 GB, which bounds the index at about 33M users
+    private static final int MAX_SLOTS = 1 << 26;
+
+    // Header fields
+    private static final int CLEAN_AT = 8;
+    private static final int COUNT_AT = 16;
+    private static final int SLOTS_AT = 24;
+    private static final int COVERED_AT = 32;
+
+    private final Path indexPath;
+    private final Path usersPath;
+    private FileChannel users;
+    private FileChannel channel;
+    private MappedByteBuffer map;
+    private int slots;
+    private int count;
+    private long covered;
+
+    private EmailIndex(Path directory) {
+        this.indexPath = directory.resolve(INDEX_FILE);
+        this.usersPath = directory.resolve("users.csv");
+    }
+
+    public static EmailIndex open(Path directory) throws IOException {
+        EmailIndex index = new EmailIndex(directory);
+        index.users = FileChannel.open(index.usersPath, StandardOpenOption.READ);
+        if (!index.load()) {
+            index.rebuild();
+        }
+        index.map.put(CLEAN_AT, (byte) 0);
+        return index;
+    }
+
+    // Maps an existing index if it is usable, indexing any rows appended after it was closed
+    private boolean load() throws IOException {
+        if (!Files.exists(indexPath) || Files.size(indexPath) < HEADER_BYTES) return false;
+        mapFile(indexPath);
+        if (map.getInt(0) != MAGIC || map.getInt(4) != VERSION || map.get(CLEAN_AT) != 1) return false;
+        slots = map.getInt(SLOTS_AT);
+        count = map.getInt(COUNT_AT);
+        covered = map.getLong(COVERED_AT);
+        long size = users.size();
+        if (covered > size || map.capacity() != HEADER_BYTES + (long) slots * SLOT_BYTES) return false;
+        if (covered < size) indexRows(covered);
+        return true;
+    }
+
+    // Scans users.csv from the start; needed after a crash or a full rewrite of the file
+    public synchronized void rebuild() throws IOException {
+        users.close();
+        users = FileChannel.open(usersPath, StandardOpenOption.READ);
+        count = 0;
+        covered = 0;
+        create(MIN_SLOTS);
+        indexRows(0);
+    }
+
+    private void indexRows(long from) throws IOException {
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(usersPath), 1 << 16)) {
+            in.skipNBytes(from);
+            long offset = from;
+            ByteArrayOutputStream line = new ByteArrayOutputStream(128);
+            int b;
+            while ((b = in.read()) != -1) {
+                if (b != '\n') {
+                    line.write(b);
+                    continue;
+                }
+                long lineStart = offset;
+                offset += line.size() + 1;
+                String text = line.toString(StandardCharsets.UTF_8);
+                line.reset();
+                if (lineStart == 0) continue; // Header
+                String[] parts = text.split(",");
+                if (parts.length > 2) add(parts[2], lineStart, offset);
+            }
+        }
+    }
+
+    // Records a row appended to users.csv at offset
+    public synchronized void add(String email, long offset) throws IOException {
+        add(email, offset, users.size());
+    }
+
+    private void add(String email, long offset, long coveredTo) throws IOException {
+        if ((count + 1) * 2L > slots) grow();
+        long hash = hash(email);
+        int slot = (int) (hash & (slots - 1));
+        while (slotHash(slot) != 0) slot = (slot + 1) & (slots - 1);
+        map.putLong(slotAt(slot) + 8, offset);
+        map.putLong(slotAt(slot), hash);
+        count++;
+        covered = Math.max(covered, coveredTo);
+        map.putInt(COUNT_AT, count);
+        map.putLong(COVERED_AT, covered);
+    }
+
+    // Byte offset of the user's row in users.csv, or -1 if the email is not registered
+    public synchronized long find(String email) throws IOException {
+        long hash = hash(email);
+        int slot = (int) (hash & (slots - 1));
+        long slotHash;
+        while ((slotHash = slotHash(slot)) != 0) {
+            if (slotHash == hash) {
+                long offset = map.getLong(slotAt(slot) + 8);
+                String[] parts = readLine(offset).split(",");
+                if (parts.length > 2 && parts[2].equals(email)) return offset;
+            }
+            slot = (slot + 1) & (slots - 1);
+        }
+        return -1;
+    }
+
+    public synchronized String readLine(long offset) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(256);
+        long position = offset;
+        while (true) {
+            int read = users.read(buffer, position + buffer.position());
+            int end = indexOf(buffer, '\n');
+            if (end >= 0 || read <= 0) {
+                int length = end >= 0 ? end : buffer.position();
+                if (length > 0 && buffer.get(length - 1) == '\r') length--;
+                return new String(buffer.array(), 0, length, StandardCharsets.UTF_8);
+            }
+            if (!buffer.hasRemaining()) {
+                ByteBuffer larger = ByteBuffer.allocate(buffer.capacity() * 2);
+                buffer.flip();
+                larger.put(buffer);
+                buffer = larger;
+            }
+        }
+    }
+
+    public synchronized int size() {
+        return count;
+    }
+
+    private static int indexOf(ByteBuffer buffer, char c) {
+        for (int i = 0; i < buffer.position(); i++) {
+            if (buffer.get(i) == c) return i;
+        }
+        return -1;
+    }
+
+    private void grow() throws IOException {
+        if (slots >= MAX_SLOTS) throw new IOException("Email index is full");
+        int oldSlots = slots;
+        long[] hashes = new long[count];
+        long[] offsets = new long[count];
+        int n = 0;
+        for (int slot = 0; slot < oldSlots; slot++) {
+            long hash = slotHash(slot);
+            if (hash == 0) continue;
+            hashes[n] = hash;
+            offsets[n++] = map.getLong(slotAt(slot) + 8);
+        }
+
+        create(oldSlots * 2);
+        for (int i = 0; i < n; i++) {
+            int slot = (int) (hashes[i] & (slots - 1));
+            while (slotHash(slot) != 0) slot = (slot + 1) & (slots - 1);
+            map.putLong(slotAt(slot) + 8, offsets[i]);
+            map.putLong(slotAt(slot), hashes[i]);
+        }
+        map.putInt(COUNT_AT, count);
+        map.putLong(COVERED_AT, covered);
+    }
+
+    // Replaces the index file with an empty table of the given size
+    private void create(int slotCount) throws IOException {
+        if (channel != null) channel.close();
+        Files.deleteIfExists(indexPath);
+        slots = slotCount;
+        mapFile(indexPath);
+        map.putInt(0, MAGIC);
+        map.putInt(4, VERSION);
+        map.putInt(SLOTS_AT, slots);
+        map.putInt(COUNT_AT, count);
+        map.putLong(COVERED_AT, covered);
+    }
+
+    private void mapFile(Path path) throws IOException {
+        if (channel != null && channel.isOpen()) channel.close();
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long size = Files.exists(path) && channel.size() > 0 ? channel.size()
+                : HEADER_BYTES + (long) slots * SLOT_BYTES;
+        map = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+    }
+
+    private long slotHash(int slot) {
+        return map.getLong(slotAt(slot));
+    }
+
+    private static int slotAt(int slot) {
+        return HEADER_BYTES + slot * SLOT_BYTES;
+    }
+
+    // 64-bit FNV-1a; 0 marks an empty slot so it is never returned
+    static long hash(String email) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < email.length(); i++) {
+            hash ^= email.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash == 0 ? 1 : hash;
+    }
+
+    // Marks the index clean so the next open can reuse it without a rescan
+    @Override
+    public synchronized void close() throws IOException {
+        map.putLong(COVERED_AT, covered);
+        map.put(CLEAN_AT, (byte) 1);
+        map.force();
+        channel.close();
+        users.close();
+    }
+}
@@ -0,0 +1,195 @@
+package ledger.storage;
+
+import ledger.model.AccountTable;
+import ledger.model.DescriptionDictionary;
+import ledger.model.Loan;
+
+import java.io.*;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+
+// Compact binary image of the loaded ledger. Restart reads the image and then parses only the part
+// of transactions.csv appended after it was taken; loans.csv is rewritten in place, so it is reused
+// from the image only if the file has not changed since. Users are not included: they are read on
+// demand through the EmailIndex.
+public class LedgerSnapshot {
+    public static final String SNAPSHOT_FILE = "ledger.snapshot";
+    private static final int MAGIC = 0x4C534E50; // "LSNP"
+    private static final int VERSION = 4;
+    // Bytes checksummed at each end of the covered part of a file
+    private static final int EDGE_BYTES = 4096;
+    private static final String[] FILES = {"transactions.csv", "loans.csv"};
+
+    private static final ExecutorService writer = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "ledger-snapshot-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    final Map<String, long[]> fileMarks;   // file -> {size, lastModified, checksum of the first and last bytes}
+    public final TransactionStore transactions;
+    public final List<Loan> loans;
+    public final Map<Integer, Long> balances;      // userId -> balance in cents
+
+    private LedgerSnapshot(Map<String, long[]> fileMarks, TransactionStore transactions,
+                           List<Loan> loans, Map<Integer, Long> balances) {
+        this.fileMarks = fileMarks;
+        this.transactions = transactions;
+        this.loans = loans;
+        this.balances = balances;
+    }
+
+    // Copies what the writer needs on the calling thread; the slow part runs in the background
+    public static LedgerSnapshot capture(Path directory, TransactionStore transactions,
+                                         List<Loan> loans, AccountTable accounts) throws IOException {
+        Map<String, long[]> marks = new HashMap<>();
+        for (String file : FILES) marks.put(file, mark(directory.resolve(file)));
+
+        List<Loan> loanCopies = new ArrayList<>(loans.size());
+        for (Loan loan : loans) loanCopies.add(loan.copy());
+        Map<Integer, Long> balanceCents = new HashMap<>(accounts.size() * 2);
+        accounts.forEachAccount(userId -> balanceCents.put(userId, accounts.balanceCents(userId)));
+
+        // Sealed transaction blocks are immutable, so only the unsealed tail is copied
+        return new LedgerSnapshot(marks, transactions.copy(), loanCopies, balanceCents);
+    }
+
+    // Queued behind any earlier snapshot; the future completes once this one is on disk
+    public Future<?> writeInBackground(Path directory) {
+        return writer.submit(() -> {
+            try {
+                write(directory);
+            } catch (IOException e) {
+                System.out.println("Error writing snapshot: " + e.getMessage());
+            }
+        });
+    }
+
+    public void write(Path directory) throws IOException {
+        Path target = directory.resolve(SNAPSHOT_FILE);
+        Path temp = directory.resolve(SNAPSHOT_FILE + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                Files.newOutputStream(temp), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+
+            out.writeInt(fileMarks.size());
+            for (Map.Entry<String, long[]> mark : fileMarks.entrySet()) {
+                out.writeUTF(mark.getKey());
+                out.writeLong(mark.getValue()[0]);
+                out.writeLong(mark.getValue()[1]);
+                out.writeLong(mark.getValue()[2]);
+            }
+
+            // Encoded blocks refer to descriptions by dictionary id, so the dictionary goes first
+            int descriptionCount = DescriptionDictionary.size();
+            out.writeInt(descriptionCount);
+            for (int i = 0; i < descriptionCount; i++) out.writeUTF(DescriptionDictionary.get(i));
+            transactions.write(out);
+
+            out.writeInt(loans.size());
+            for (Loan loan : loans) {
+                out.writeInt(loan.getLoanId());
+                out.writeInt(loan.getUserId());
+                out.writeUTF(loan.getPrincipalAmount().toPlainString());
+                out.writeDouble(loan.getInterestRate());
+                out.writeInt(loan.getRepaymentPeriod());
+                out.writeUTF(loan.getOutstandingBalance().toPlainString());
+                out.writeUTF(loan.getStatus());
+                out.writeLong(loan.getCreatedAt().toEpochDay());
+            }
+
+            out.writeInt(balances.size());
+            for (Map.Entry<Integer, Long> balance : balances.entrySet()) {
+                out.writeInt(balance.getKey());
+                out.writeLong(balance.getValue());
+            }
+        }
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // Returns null if there is no usable snapshot
+    public static LedgerSnapshot read(Path directory) {
+        Path path = directory.resolve(SNAPSHOT_FILE);
+        if (!Files.exists(path)) return null;
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path), 1 << 16))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) return null;
+
+            Map<String, long[]> marks = new HashMap<>();
+            int markCount = in.readInt();
+            for (int i = 0; i < markCount; i++) {
+                marks.put(in.readUTF(), new long[]{in.readLong(), in.readLong(), in.readLong()});
+            }
+
+            int descriptionCount = in.readInt();
+            int[] descriptionIds = new int[descriptionCount];
+            for (int i = 0; i < descriptionCount; i++) descriptionIds[i] = DescriptionDictionary.intern(in.readUTF());
+            TransactionStore transactions = TransactionStore.read(in, descriptionIds);
+
+            int loanCount = in.readInt();
+            List<Loan> loans = new ArrayList<>(loanCount);
+            for (int i = 0; i < loanCount; i++) {
+                loans.add(new Loan(in.readInt(), in.readInt(), new BigDecimal(in.readUTF()), in.readDouble(),
+                        in.readInt(), new BigDecimal(in.readUTF()), in.readUTF(), LocalDate.ofEpochDay(in.readLong())));
+            }
+
+            int balanceCount = in.readInt();
+            Map<Integer, Long> balances = new HashMap<>(balanceCount * 2);
+            for (int i = 0; i < balanceCount; i++) balances.put(in.readInt(), in.readLong());
+
+            return new LedgerSnapshot(marks, transactions, loans, balances);
+        } catch (IOException | RuntimeException e) {
+            System.out.println("Ignoring unreadable snapshot: " + e.getMessage());
+            return null;
+        }
+    }
+
+    // True if the file is exactly as it was when the snapshot was taken
+    public boolean isUnchanged(Path directory, String file) throws IOException {
+        long[] mark = fileMarks.get(file);
+        long[] current = mark(directory.resolve(file));
+        return mark != null && mark[0] == current[0] && mark[1] == current[1] && mark[2] == current[2];
+    }
+
+    // Byte offset in an append-only file up to which the snapshot already covers its rows,
+    // or -1 if the file was truncated or replaced and must be read from the start. A replacement
+    // that is at least as long is caught by the bytes at either end of the covered part changing.
+    public long coveredLength(Path directory, String file) throws IOException {
+        long[] mark = fileMarks.get(file);
+        Path path = directory.resolve(file);
+        if (mark == null || !Files.exists(path) || Files.size(path) < mark[0]) return -1;
+        return edgeChecksum(path, mark[0]) == mark[2] ? mark[0] : -1;
+    }
+
+    private static long[] mark(Path path) throws IOException {
+        if (!Files.exists(path)) return new long[]{0, 0, 0};
+        long size = Files.size(path);
+        return new long[]{size, Files.getLastModifiedTime(path).toMillis(), edgeChecksum(path, size)};
+    }
+
+    // CRC32 of the first and last EDGE_BYTES of the file's first length bytes
+    private static long edgeChecksum(Path path, long length) throws IOException {
+        CRC32 crc = new CRC32();
+        try (FileChannel channel = FileChannel.open(path)) {
+            ByteBuffer buffer = ByteBuffer.allocate(EDGE_BYTES);
+            for (long start : new long[]{0, Math.max(0, length - EDGE_BYTES)}) {
+                buffer.clear().limit((int) Math.min(EDGE_BYTES, length));
+                while (buffer.hasRemaining()) {
+                    if (channel.read(buffer, start + buffer.position()) < 0) break;
+                }
+                buffer.flip();
+                crc.update(buffer);
+            }
+        }
+        return crc.getValue();
+    }
+}
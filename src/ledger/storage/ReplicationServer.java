@@ -0,0 +1,190 @@
+package ledger.storage;
+
+import ledger.metrics.Metrics;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Streams the leader's write-ahead log records to followers on a loopback socket.
+//
+// A follower is registered first and then, on its own sender thread and without holding the lock
+// commits need, gets a copy of the archived rows and the replicated CSVs in chunks of at most
+// CHUNK_BYTES: a rewrite record for the first chunk of each file and appends at their offsets for the
+// rest. Every batch committed after it registered follows, in the log's own encoding. Appends carry
+// their file offsets, so a follower skips whatever its copy already holds and the two overlap safely.
+// Each follower has its own bounded queue; one that falls a full queue behind is disconnected rather
+// than slowing down commits, and catches up again when it reconnects.
+public class ReplicationServer implements Closeable {
+    public static final String[] FILES = {"transactions.csv", "loans.csv", "savings.csv"};
+    // Pseudo-file the archived transaction rows are sent as, without a header; its offsets count the
+    // bytes sent
+    public static final String ARCHIVE = "archive";
+    private static final int QUEUE_BATCHES = 4096;
+    private static final int CHUNK_BYTES = 1 << 20;
+
+    private static final LongAdder batches = Metrics.counter("replication.batches");
+    private static final LongAdder dropped = Metrics.counter("replication.dropped");
+
+    private final Path directory;
+    private final TransactionArchive archive;
+    private final ServerSocket server;
+    private final List<Follower> followers = new CopyOnWriteArrayList<>();
+    private final Thread acceptor;
+
+    private class Follower {
+        final Socket socket;
+        final BlockingQueue<byte[]> queue = new ArrayBlockingQueue<>(QUEUE_BATCHES);
+        volatile boolean open = true;
+
+        Follower(Socket socket) {
+            this.socket = socket;
+        }
+
+        void send() {
+            try (OutputStream out = new BufferedOutputStream(socket.getOutputStream(), 1 << 16)) {
+                catchUp(out);
+                while (open) {
+                    byte[] batch = queue.poll(1, TimeUnit.SECONDS);
+                    if (batch == null) continue;
+                    out.write(batch);
+                    if (queue.isEmpty()) out.flush();
+                }
+            } catch (IOException | UncheckedIOException | InterruptedException e) {
+                // The follower went away; it starts over from a full copy when it reconnects
+            }
+            close();
+        }
+
+        void close() {
+            open = false;
+            followers.remove(this);
+            try {
+                socket.close();
+            } catch (IOException ignored) {
+                // Already closed
+            }
+        }
+    }
+
+    private ReplicationServer(Path directory, int port, TransactionArchive archive) throws IOException {
+        this.directory = directory;
+        this.archive = archive;
+        this.server = new ServerSocket(port, 16, InetAddress.getLoopbackAddress());
+        this.acceptor = new Thread(this::acceptLoop, "ledger-replication");
+        this.acceptor.setDaemon(true);
+        this.acceptor.start();
+        Metrics.gauge("replication.followers", followers::size);
+    }
+
+    public static ReplicationServer start(Path directory, int port, TransactionArchive archive) throws IOException {
+        return new ReplicationServer(directory, port, archive);
+    }
+
+    // Queues a batch of committed records for every follower; called on the log's flusher thread
+    synchronized void replicate(byte[] records) {
+        batches.increment();
+        for (Follower follower : followers) {
+            if (!follower.queue.offer(records)) {
+                dropped.increment();
+                follower.close();
+            }
+        }
+    }
+
+    private void acceptLoop() {
+        while (!server.isClosed()) {
+            try {
+                Socket socket = server.accept();
+                Follower follower = new Follower(socket);
+                // Batches committed from here on are queued; the copy is read by the sender
+                synchronized (this) {
+                    followers.add(follower);
+                }
+                Thread sender = new Thread(follower::send, "ledger-replication-" + socket.getPort());
+                sender.setDaemon(true);
+                sender.start();
+            } catch (IOException e) {
+                if (!server.isClosed()) {
+                    System.out.println("Error accepting follower: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    // The archive has not changed since the leader opened, so only the CSVs can run ahead of the copy
+    private void catchUp(OutputStream out) throws IOException {
+        out.write(WriteAheadLog.encodeRewrite(ARCHIVE, ""));
+        long[] offset = {0};
+        StringBuilder chunk = new StringBuilder();
+        archive.forEachBlock(rows -> {
+            for (String row : rows) chunk.append(row).append('\n');
+            if (chunk.length() >= CHUNK_BYTES) offset[0] = sendArchived(out, offset[0], chunk);
+        });
+        sendArchived(out, offset[0], chunk);
+        for (String file : FILES) copy(directory.resolve(file), file, out);
+        out.flush();
+    }
+
+    private static long sendArchived(OutputStream out, long offset, StringBuilder chunk) {
+        if (chunk.length() == 0) return offset;
+        String content = chunk.toString();
+        chunk.setLength(0);
+        try {
+            out.write(WriteAheadLog.encodeAppend(ARCHIVE, offset, content));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return offset + content.getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    // Sends the file up to its last newline, leaving out a line whose append is still in progress
+    private static void copy(Path path, String file, OutputStream out) throws IOException {
+        if (!Files.exists(path)) {
+            out.write(WriteAheadLog.encodeRewrite(file, ""));
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(path)) {
+            ByteBuffer buffer = ByteBuffer.allocate(CHUNK_BYTES);
+            long position = 0;
+            while (true) {
+                buffer.clear();
+                int read = 0;
+                while (buffer.hasRemaining() && read >= 0) read = channel.read(buffer, position + buffer.position());
+                boolean end = read < 0;
+                int length = buffer.position();
+                while (length > 0 && buffer.get(length - 1) != '\n') length--;
+                if (length == 0 && !end) {
+                    // A line longer than a chunk is sent whole
+                    buffer = ByteBuffer.allocate(buffer.capacity() * 2);
+                    continue;
+                }
+                String content = new String(buffer.array(), 0, length, StandardCharsets.UTF_8);
+                if (position == 0) {
+                    out.write(WriteAheadLog.encodeRewrite(file, content));
+                } else if (length > 0) {
+                    out.write(WriteAheadLog.encodeAppend(file, position, content));
+                }
+                if (end) return;
+                position += length;
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        server.close();
+        for (Follower follower : followers) follower.close();
+    }
+}
@@ -0,0 +1,380 @@
+package ledger.storage;
+
+import ledger.model.Transaction;
+
+import java.io.*;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+// Cold tier for transactions: rows dated before the cutoff are moved out of transactions.csv into
+// immutable segment files under archive/, one per month, and are no longer held in memory.
+//
+// A segment holds each user's rows for the month as a separately gzipped block, behind a small index
+// of (userId, offset, length, rows, net balance) and a summary of the month, so one user's history
+// reads only that user's blocks and system analytics reads only the summaries. What a summary holds is
+// up to the Summarizer the roll is given; the archive stores the bytes and hands them back.
+// manifest.csv is the commit point: it lists the segments, the cutoff and how many rows they hold.
+// A roll marker is kept until transactions.csv has been trimmed; if it is still there on open, the
+// roll crashed after committing and the rows dated before the cutoff are dropped from the CSV then.
+public class TransactionArchive {
+    public static final String ARCHIVE_DIR = "archive";
+    private static final String MANIFEST = "manifest.csv";
+    private static final String ROLLING = "rolling";
+    private static final int MAGIC = 0x4C534547; // "LSEG"
+    private static final int VERSION = 2;
+
+    // Writes the summary kept in a segment's header from the segment's rows
+    public interface Summarizer {
+        void write(List<Transaction> rows, DataOutputStream out) throws IOException;
+    }
+
+    private static class Block {
+        final long offset;
+        final int length;
+        final int rows;
+        final long netCents;    // debits minus credits
+
+        Block(long offset, int length, int rows, long netCents) {
+            this.offset = offset;
+            this.length = length;
+            this.rows = rows;
+            this.netCents = netCents;
+        }
+    }
+
+    private static class Segment {
+        final Path path;
+        final YearMonth month;
+        final long dataStart;
+        final Map<Integer, Block> blocks;
+        final byte[] summary;
+
+        Segment(Path path, YearMonth month, long dataStart, Map<Integer, Block> blocks, byte[] summary) {
+            this.path = path;
+            this.month = month;
+            this.dataStart = dataStart;
+            this.blocks = blocks;
+            this.summary = summary;
+        }
+    }
+
+    private final Path dataDir;
+    private final Path dir;
+    private final List<Segment> segments = new ArrayList<>();
+    private final Map<Integer, Long> balanceCents = new HashMap<>();
+    private LocalDate cutoff = LocalDate.MIN;
+    private int rows;
+
+    private TransactionArchive(Path dataDir) {
+        this.dataDir = dataDir;
+        this.dir = dataDir.resolve(ARCHIVE_DIR);
+    }
+
+    // Reads the manifest and segment indexes, finishing a roll that was interrupted by a crash
+    public static TransactionArchive open(Path dataDir) throws IOException {
+        TransactionArchive archive = new TransactionArchive(dataDir);
+        Path manifest = archive.dir.resolve(MANIFEST);
+        if (!Files.exists(manifest)) return archive;
+
+        List<String> lines = Files.readAllLines(manifest);
+        String[] header = lines.get(1).split(",");
+        archive.cutoff = LocalDate.parse(header[0]);
+        archive.rows = Integer.parseInt(header[1]);
+        for (int i = 2; i < lines.size(); i++) {
+            if (!lines.get(i).isBlank()) archive.segments.add(archive.readSegment(archive.dir.resolve(lines.get(i))));
+        }
+        for (Segment segment : archive.segments) archive.addBalances(segment);
+        if (Files.exists(archive.dir.resolve(ROLLING))) archive.dropArchivedRows();
+        return archive;
+    }
+
+    // Moves rows dated before cutoff out of transactions.csv; returns how many were moved. The CSV is
+    // streamed and cold rows are spilled to a file per month, so only one month is held in memory.
+    public int roll(LocalDate cutoff, Summarizer summarizer) throws IOException {
+        if (!cutoff.isAfter(this.cutoff)) return 0;
+        if (Files.isDirectory(dir)) deleteUnlisted();
+        Map<YearMonth, Path> spills = new TreeMap<>();
+        Map<YearMonth, Writer> writers = new HashMap<>();
+        int moved = 0;
+        try (BufferedReader reader = Files.newBufferedReader(dataDir.resolve("transactions.csv"))) {
+            reader.readLine(); // Skip header
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) continue;
+                LocalDate date = LocalDate.parse(line.substring(line.lastIndexOf(',') + 1));
+                if (!date.isBefore(cutoff)) continue;
+                YearMonth month = YearMonth.from(date);
+                Writer writer = writers.get(month);
+                if (writer == null) {
+                    Files.createDirectories(dir);
+                    Path spill = dir.resolve("tx-" + month + ".rows");
+                    spills.put(month, spill);
+                    writer = Files.newBufferedWriter(spill);
+                    writers.put(month, writer);
+                }
+                writer.write(line);
+                writer.write('\n');
+                moved++;
+            }
+        } finally {
+            for (Writer writer : writers.values()) writer.close();
+        }
+
+        if (moved == 0 && segments.isEmpty()) return 0;
+        Files.createDirectories(dir);
+        List<Segment> written = new ArrayList<>();
+        for (Map.Entry<YearMonth, Path> spill : spills.entrySet()) {
+            written.add(writeSegment(spill.getKey(), Files.readAllLines(spill.getValue()), summarizer));
+            Files.delete(spill.getValue());
+        }
+
+        // Committing the manifest makes the new segments part of the archive
+        Files.write(dir.resolve(ROLLING), new byte[0]);
+        List<String> manifest = new ArrayList<>();
+        manifest.add("cutoff,rows");
+        manifest.add(cutoff + "," + (rows + moved));
+        for (Segment segment : segments) manifest.add(segment.path.getFileName().toString());
+        for (Segment segment : written) manifest.add(segment.path.getFileName().toString());
+        writeAtomically(dir.resolve(MANIFEST), String.join(System.lineSeparator(), manifest) + System.lineSeparator());
+
+        this.cutoff = cutoff;
+        this.rows += moved;
+        segments.addAll(written);
+        for (Segment segment : written) addBalances(segment);
+        dropArchivedRows();
+        return moved;
+    }
+
+    private void addBalances(Segment segment) {
+        segment.blocks.forEach((userId, block) -> balanceCents.merge(userId, block.netCents, Long::sum));
+    }
+
+    // Rows dated before the cutoff are all in segments, so any still in the CSV are removed. The hot
+    // rows are streamed into a copy that replaces the CSV.
+    private void dropArchivedRows() throws IOException {
+        if (cutoff.equals(LocalDate.MIN)) return;
+        Path csv = dataDir.resolve("transactions.csv");
+        Path temp = csv.resolveSibling(csv.getFileName() + ".tmp");
+        boolean dropped = false;
+        try (BufferedReader reader = Files.newBufferedReader(csv);
+             BufferedWriter writer = Files.newBufferedWriter(temp)) {
+            String line = reader.readLine();
+            if (line != null) writer.write(line + System.lineSeparator());
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank() || LocalDate.parse(line.substring(line.lastIndexOf(',') + 1)).isBefore(cutoff)) {
+                    dropped = true;
+                } else {
+                    writer.write(line + System.lineSeparator());
+                }
+            }
+        }
+        if (dropped) {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                channel.force(true);
+            }
+            Files.move(temp, csv, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            Files.deleteIfExists(dataDir.resolve(LedgerSnapshot.SNAPSHOT_FILE));
+        } else {
+            Files.delete(temp);
+        }
+        Files.deleteIfExists(dir.resolve(ROLLING));
+    }
+
+    // Segment and spill files left by a roll that crashed before its manifest was written
+    private void deleteUnlisted() throws IOException {
+        Set<Path> listed = new HashSet<>();
+        for (Segment segment : segments) listed.add(segment.path);
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "*.{seg,rows}")) {
+            for (Path file : files) {
+                if (!listed.contains(file)) Files.delete(file);
+            }
+        }
+    }
+
+    private Segment writeSegment(YearMonth month, List<String> lines, Summarizer summarizer) throws IOException {
+        Path path = dir.resolve("tx-" + month + ".seg");
+        for (int part = 2; Files.exists(path); part++) path = dir.resolve("tx-" + month + "-" + part + ".seg");
+
+        Map<Integer, List<String>> byUser = new TreeMap<>();
+        Map<Integer, Long> net = new HashMap<>();
+        List<Transaction> transactions = new ArrayList<>(lines.size());
+        for (String line : lines) {
+            Transaction t = Transaction.parse(line);
+            transactions.add(t);
+            byUser.computeIfAbsent(t.getUserId(), k -> new ArrayList<>()).add(line);
+            net.merge(t.getUserId(), t.getType().equals("debit") ? toCents(t.getAmount()) : -toCents(t.getAmount()),
+                    Long::sum);
+        }
+
+        ByteArrayOutputStream data = new ByteArrayOutputStream();
+        Map<Integer, Block> blocks = new LinkedHashMap<>();
+        for (Map.Entry<Integer, List<String>> user : byUser.entrySet()) {
+            long offset = data.size();
+            try (Writer writer = new OutputStreamWriter(new GZIPOutputStream(new NonClosing(data)), StandardCharsets.UTF_8)) {
+                for (String line : user.getValue()) writer.write(line + "\n");
+            }
+            blocks.put(user.getKey(), new Block(offset, (int) (data.size() - offset), user.getValue().size(),
+                    net.get(user.getKey())));
+        }
+        ByteArrayOutputStream header = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(header)) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeUTF(month.toString());
+            out.writeInt(blocks.size());
+            for (Map.Entry<Integer, Block> block : blocks.entrySet()) {
+                out.writeInt(block.getKey());
+                out.writeLong(block.getValue().offset);
+                out.writeInt(block.getValue().length);
+                out.writeInt(block.getValue().rows);
+                out.writeLong(block.getValue().netCents);
+            }
+            summarizer.write(transactions, out);
+        }
+
+        ByteArrayOutputStream file = new ByteArrayOutputStream(4 + header.size() + data.size());
+        new DataOutputStream(file).writeInt(header.size());
+        header.writeTo(file);
+        data.writeTo(file);
+        writeAtomically(path, file.toByteArray());
+        return readSegment(path);
+    }
+
+    private Segment readSegment(Path path) throws IOException {
+        byte[] header;
+        try (DataInputStream file = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            header = new byte[file.readInt()];
+            file.readFully(header);
+        }
+        ByteArrayInputStream bytes = new ByteArrayInputStream(header);
+        try (DataInputStream in = new DataInputStream(bytes)) {
+            int version = in.readInt() == MAGIC ? in.readInt() : -1;
+            if (version != VERSION) throw new IOException("Not an archive segment: " + path);
+            YearMonth month = YearMonth.parse(in.readUTF());
+            int users = in.readInt();
+            Map<Integer, Block> blocks = new HashMap<>(users * 2);
+            for (int i = 0; i < users; i++) {
+                blocks.put(in.readInt(), new Block(in.readLong(), in.readInt(), in.readInt(), in.readLong()));
+            }
+            byte[] summary = Arrays.copyOfRange(header, header.length - bytes.available(), header.length);
+            return new Segment(path, month, 4 + header.length, blocks, summary);
+        }
+    }
+
+    // The user's archived rows dated from..to inclusive, in recorded order; only segments for months
+    // in the range are read
+    public List<Transaction> read(int userId, LocalDate from, LocalDate to) {
+        List<Transaction> result = new ArrayList<>();
+        for (Segment segment : segments) {
+            if (segment.month.atEndOfMonth().isBefore(from) || segment.month.atDay(1).isAfter(to)) continue;
+            Block block = segment.blocks.get(userId);
+            if (block == null) continue;
+            for (String line : readBlock(segment, block)) {
+                Transaction transaction = Transaction.parse(line);
+                if (!transaction.getDate().isBefore(from) && !transaction.getDate().isAfter(to)) result.add(transaction);
+            }
+        }
+        result.sort(Comparator.comparingInt(Transaction::getTransactionId));
+        return result;
+    }
+
+    public List<Transaction> read(int userId) {
+        return read(userId, LocalDate.MIN, LocalDate.MAX);
+    }
+
+    private List<String> readBlock(Segment segment, Block block) {
+        try (FileChannel channel = FileChannel.open(segment.path)) {
+            ByteBuffer buffer = ByteBuffer.allocate(block.length);
+            long position = segment.dataStart + block.offset;
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, position + buffer.position()) < 0) throw new EOFException(segment.path.toString());
+            }
+            List<String> lines = new ArrayList<>(block.rows);
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                    new GZIPInputStream(new ByteArrayInputStream(buffer.array())), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) lines.add(line);
+            }
+            return lines;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read archive segment " + segment.path.getFileName(), e);
+        }
+    }
+
+    // Every archived row, one user's block of a month at a time, oldest month first
+    public void forEachBlock(Consumer<List<String>> rows) {
+        for (Segment segment : segments) {
+            for (Block block : segment.blocks.values()) rows.accept(readBlock(segment, block));
+        }
+    }
+
+    // Each segment's summary as its Summarizer wrote it, oldest month first
+    public List<byte[]> summaries() {
+        List<byte[]> summaries = new ArrayList<>(segments.size());
+        for (Segment segment : segments) summaries.add(segment.summary);
+        return summaries;
+    }
+
+    // Net archived balance (debits minus credits) per user, in cents
+    public Map<Integer, Long> balanceCents() {
+        return balanceCents;
+    }
+
+    public LocalDate cutoff() {
+        return cutoff;
+    }
+
+    public int rows() {
+        return rows;
+    }
+
+    public boolean isEmpty() {
+        return segments.isEmpty();
+    }
+
+    private static long toCents(BigDecimal amount) {
+        return amount.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    private static void writeAtomically(Path target, String content) throws IOException {
+        writeAtomically(target, content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void writeAtomically(Path target, byte[] content) throws IOException {
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.wrap(content);
+            while (buffer.hasRemaining()) channel.write(buffer);
+            channel.force(true);
+        }
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // Lets each gzip block be finished without closing the buffer it is written into
+    private static class NonClosing extends FilterOutputStream {
+        NonClosing(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
+}
@@ -0,0 +1,389 @@
+package ledger.storage;
+
+import ledger.model.Transaction;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+// Append-only transaction store kept as encoded column blocks instead of Transaction objects.
+// Rows collect in plain arrays until BLOCK_ROWS are buffered, then the block is sealed:
+//   ids and dates     delta-encoded varints (consecutive ids and same-day rows take one byte)
+//   user ids          varints
+//   type              one bit per row
+//   description       varint id into DescriptionDictionary
+//   amount            frame of reference: the block's minimum plus a fixed-width bit-packed offset
+// Scans decode one block at a time into reusable primitive arrays, so history and aggregation
+// never build objects for rows they do not return. Sealed blocks are immutable and shared by copies.
+// A per-user list of the sealed blocks holding the user's rows lets forUser skip every other block;
+// it is extended with the blocks sealed since the last lookup, so loading never waits for it.
+// Not thread-safe, like the ledger that owns it; a copy taken after indexUsers is never added to can
+// be read from several threads.
+public class TransactionStore {
+    static final int BLOCK_ROWS = 4096;
+
+    // Called for each row of a scan with the row's decoded columns
+    public interface RowVisitor {
+        void row(int transactionId, int userId, boolean debit, long cents, int descriptionId, int epochDay);
+    }
+
+    // One block's columns decoded into primitive arrays
+    public static final class Rows {
+        public int size;
+        public final int[] ids = new int[BLOCK_ROWS];
+        public final int[] userIds = new int[BLOCK_ROWS];
+        public final boolean[] debit = new boolean[BLOCK_ROWS];
+        public final long[] cents = new long[BLOCK_ROWS];
+        public final int[] descriptionIds = new int[BLOCK_ROWS];
+        public final int[] epochDays = new int[BLOCK_ROWS];
+
+        void add(int id, int userId, boolean isDebit, long amount, int descriptionId, int epochDay) {
+            ids[size] = id;
+            userIds[size] = userId;
+            debit[size] = isDebit;
+            cents[size] = amount;
+            descriptionIds[size] = descriptionId;
+            epochDays[size] = epochDay;
+            size++;
+        }
+
+        Rows copy() {
+            Rows copy = new Rows();
+            copy.size = size;
+            System.arraycopy(ids, 0, copy.ids, 0, size);
+            System.arraycopy(userIds, 0, copy.userIds, 0, size);
+            System.arraycopy(debit, 0, copy.debit, 0, size);
+            System.arraycopy(cents, 0, copy.cents, 0, size);
+            System.arraycopy(descriptionIds, 0, copy.descriptionIds, 0, size);
+            System.arraycopy(epochDays, 0, copy.epochDays, 0, size);
+            return copy;
+        }
+    }
+
+    private final List<byte[]> blocks;
+    private Rows tail = new Rows();
+    private long encodedBytes;
+    private int[][] userBlocks = new int[0][];    // by userId: count of blocks, then the block numbers
+    private int indexedBlocks;
+
+    public TransactionStore() {
+        this.blocks = new ArrayList<>();
+    }
+
+    private TransactionStore(List<byte[]> blocks, Rows tail, long encodedBytes) {
+        this.blocks = blocks;
+        this.tail = tail;
+        this.encodedBytes = encodedBytes;
+    }
+
+    public void add(Transaction t) {
+        tail.add(t.getTransactionId(), t.getUserId(), t.getType().equals("debit"),
+                t.getAmount().unscaledValue().longValueExact(), t.getDescriptionId(), (int) t.getDate().toEpochDay());
+        if (tail.size == BLOCK_ROWS) {
+            byte[] block = encode(tail);
+            blocks.add(block);
+            encodedBytes += block.length;
+            tail = new Rows();
+        }
+    }
+
+    public int size() {
+        return blocks.size() * BLOCK_ROWS + tail.size;
+    }
+
+    // Bytes held by sealed blocks; the unsealed tail is not counted
+    public long encodedBytes() {
+        return encodedBytes;
+    }
+
+    // Shares the sealed blocks and copies the tail and the per-user block lists, for a snapshot taken
+    // while the ledger keeps going
+    public TransactionStore copy() {
+        TransactionStore copy = new TransactionStore(new ArrayList<>(blocks), tail.copy(), encodedBytes);
+        copy.userBlocks = new int[userBlocks.length][];
+        for (int userId = 0; userId < userBlocks.length; userId++) {
+            int[] list = userBlocks[userId];
+            if (list != null) copy.userBlocks[userId] = Arrays.copyOf(list, list[0] + 1);
+        }
+        copy.indexedBlocks = indexedBlocks;
+        return copy;
+    }
+
+    public void scan(RowVisitor visitor) {
+        Rows rows = new Rows();
+        for (byte[] block : blocks) {
+            decode(block, rows);
+            visit(rows, visitor);
+        }
+        visit(tail, visitor);
+    }
+
+    private static void visit(Rows rows, RowVisitor visitor) {
+        for (int i = 0; i < rows.size; i++) {
+            visitor.row(rows.ids[i], rows.userIds[i], rows.debit[i], rows.cents[i],
+                    rows.descriptionIds[i], rows.epochDays[i]);
+        }
+    }
+
+    // Blocks in order as decoded rows; the last one is the unsealed tail
+    public void scanBlocks(Consumer<Rows> consumer) {
+        Rows rows = new Rows();
+        for (byte[] block : blocks) {
+            decode(block, rows);
+            consumer.accept(rows);
+        }
+        consumer.accept(tail);
+    }
+
+    // The user's transactions in recorded order; only the user's blocks are decoded and only matching
+    // rows become objects
+    public List<Transaction> forUser(int userId) {
+        indexUsers();
+        List<Transaction> result = new ArrayList<>();
+        int[] userBlockList = userId < userBlocks.length ? userBlocks[userId] : null;
+        if (userBlockList != null) {
+            Rows rows = new Rows();
+            for (int i = 1; i <= userBlockList[0]; i++) {
+                decode(blocks.get(userBlockList[i]), rows);
+                collect(rows, userId, result);
+            }
+        }
+        collect(tail, userId, result);
+        return result;
+    }
+
+    private static void collect(Rows rows, int userId, List<Transaction> result) {
+        for (int i = 0; i < rows.size; i++) {
+            if (rows.userIds[i] != userId) continue;
+            result.add(new Transaction(rows.ids[i], userId, rows.debit[i], rows.cents[i], rows.descriptionIds[i],
+                    LocalDate.ofEpochDay(rows.epochDays[i])));
+        }
+    }
+
+    // Adds the blocks sealed since the last call to the per-user block lists
+    public void indexUsers() {
+        Rows rows = new Rows();
+        for (; indexedBlocks < blocks.size(); indexedBlocks++) {
+            decode(blocks.get(indexedBlocks), rows);
+            for (int i = 0; i < rows.size; i++) {
+                int userId = rows.userIds[i];
+                if (userId >= userBlocks.length) {
+                    userBlocks = Arrays.copyOf(userBlocks, Math.max(userBlocks.length * 2, userId + 1));
+                }
+                int[] list = userBlocks[userId];
+                if (list == null) list = userBlocks[userId] = new int[4];
+                int count = list[0];
+                if (count > 0 && list[count] == indexedBlocks) continue;
+                if (count + 1 == list.length) list = userBlocks[userId] = Arrays.copyOf(list, list.length * 2);
+                list[count + 1] = indexedBlocks;
+                list[0] = count + 1;
+            }
+        }
+    }
+
+    public List<Transaction> toList() {
+        List<Transaction> result = new ArrayList<>(size());
+        scan((id, user, debit, cents, descriptionId, epochDay) ->
+                result.add(new Transaction(id, user, debit, cents, descriptionId, LocalDate.ofEpochDay(epochDay))));
+        return result;
+    }
+
+    // Blocks as stored, descriptions by dictionary id; read maps them back through descriptions
+    public void write(DataOutputStream out) throws IOException {
+        out.writeInt(blocks.size() + 1);
+        for (byte[] block : blocks) {
+            out.writeInt(block.length);
+            out.write(block);
+        }
+        byte[] last = encode(tail);
+        out.writeInt(last.length);
+        out.write(last);
+    }
+
+    // descriptionIds maps the ids the blocks were written with to ids in this process
+    public static TransactionStore read(DataInputStream in, int[] descriptionIds) throws IOException {
+        boolean sameIds = true;
+        for (int i = 0; i < descriptionIds.length; i++) sameIds &= descriptionIds[i] == i;
+
+        TransactionStore store = new TransactionStore();
+        Rows rows = new Rows();
+        int count = in.readInt();
+        for (int b = 0; b < count; b++) {
+            byte[] block = new byte[in.readInt()];
+            in.readFully(block);
+            if (sameIds && b < count - 1 && blockRows(block) == BLOCK_ROWS) {
+                store.blocks.add(block);
+                store.encodedBytes += block.length;
+                continue;
+            }
+            decode(block, rows);
+            for (int i = 0; i < rows.size; i++) {
+                store.tail.add(rows.ids[i], rows.userIds[i], rows.debit[i], rows.cents[i],
+                        descriptionIds[rows.descriptionIds[i]], rows.epochDays[i]);
+                if (store.tail.size == BLOCK_ROWS) {
+                    byte[] sealed = encode(store.tail);
+                    store.blocks.add(sealed);
+                    store.encodedBytes += sealed.length;
+                    store.tail = new Rows();
+                }
+            }
+        }
+        return store;
+    }
+
+    // rows, first id, first day, amount base, amount bits, then the columns in the order listed above
+    static byte[] encode(Rows rows) {
+        Encoder out = new Encoder(rows.size * 8 + 32);
+        int n = rows.size;
+        out.varint(n);
+        if (n == 0) return out.toByteArray();
+
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+        for (int i = 0; i < n; i++) {
+            min = Math.min(min, rows.cents[i]);
+            max = Math.max(max, rows.cents[i]);
+        }
+        int bits = 64 - Long.numberOfLeadingZeros(max - min);
+
+        out.zigzag(rows.ids[0]);
+        out.zigzag(rows.epochDays[0]);
+        out.zigzag(min);
+        out.varint(bits);
+        for (int i = 1; i < n; i++) out.zigzag((long) rows.ids[i] - rows.ids[i - 1]);
+        for (int i = 0; i < n; i++) out.zigzag(rows.userIds[i]);
+        for (int i = 1; i < n; i++) out.zigzag((long) rows.epochDays[i] - rows.epochDays[i - 1]);
+        for (int i = 0; i < n; i += 8) {
+            int flags = 0;
+            for (int j = i; j < Math.min(n, i + 8); j++) {
+                if (rows.debit[j]) flags |= 1 << (j - i);
+            }
+            out.write(flags);
+        }
+        for (int i = 0; i < n; i++) out.varint(rows.descriptionIds[i]);
+        long buffer = 0;
+        int buffered = 0;
+        for (int i = 0; i < n; i++) {
+            long value = rows.cents[i] - min;
+            for (int written = 0; written < bits; ) {
+                int take = Math.min(bits - written, 8 - buffered);
+                buffer |= ((value >>> written) & ((1L << take) - 1)) << buffered;
+                buffered += take;
+                written += take;
+                if (buffered == 8) {
+                    out.write((int) buffer);
+                    buffer = 0;
+                    buffered = 0;
+                }
+            }
+        }
+        if (buffered > 0) out.write((int) buffer);
+        return out.toByteArray();
+    }
+
+    private static int blockRows(byte[] block) {
+        return (int) new Decoder(block).varint();
+    }
+
+    static void decode(byte[] block, Rows rows) {
+        Decoder in = new Decoder(block);
+        int n = (int) in.varint();
+        rows.size = n;
+        if (n == 0) return;
+
+        rows.ids[0] = (int) in.zigzag();
+        rows.epochDays[0] = (int) in.zigzag();
+        long min = in.zigzag();
+        int bits = (int) in.varint();
+        for (int i = 1; i < n; i++) rows.ids[i] = (int) (rows.ids[i - 1] + in.zigzag());
+        for (int i = 0; i < n; i++) rows.userIds[i] = (int) in.zigzag();
+        for (int i = 1; i < n; i++) rows.epochDays[i] = (int) (rows.epochDays[i - 1] + in.zigzag());
+        for (int i = 0; i < n; i += 8) {
+            int flags = in.read();
+            for (int j = i; j < Math.min(n, i + 8); j++) rows.debit[j] = (flags & (1 << (j - i))) != 0;
+        }
+        for (int i = 0; i < n; i++) rows.descriptionIds[i] = (int) in.varint();
+        int buffer = 0;
+        int buffered = 0;
+        for (int i = 0; i < n; i++) {
+            long value = 0;
+            for (int read = 0; read < bits; ) {
+                if (buffered == 0) {
+                    buffer = in.read();
+                    buffered = 8;
+                }
+                int take = Math.min(bits - read, buffered);
+                value |= (long) (buffer & ((1 << take) - 1)) << read;
+                buffer >>>= take;
+                buffered -= take;
+                read += take;
+            }
+            rows.cents[i] = min + value;
+        }
+    }
+
+    private static final class Encoder {
+        private byte[] bytes;
+        private int size;
+
+        Encoder(int capacity) {
+            bytes = new byte[capacity];
+        }
+
+        void write(int b) {
+            if (size == bytes.length) bytes = Arrays.copyOf(bytes, size * 2);
+            bytes[size++] = (byte) b;
+        }
+
+        void varint(long value) {
+            while ((value & ~0x7FL) != 0) {
+                write((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            write((int) value);
+        }
+
+        void zigzag(long value) {
+            varint((value << 1) ^ (value >> 63));
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(bytes, size);
+        }
+    }
+
+    private static final class Decoder {
+        private final byte[] bytes;
+        private int position;
+
+        Decoder(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        int read() {
+            return bytes[position++] & 0xFF;
+        }
+
+        long varint() {
+            long value = 0;
+            int shift = 0;
+            int b;
+            do {
+                b = read();
+                value |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            return value;
+        }
+
+        long zigzag() {
+            long value = varint();
+            return (value >>> 1) ^ -(value & 1);
+        }
+    }
+}
@@ -0,0 +1,484 @@
+package ledger.storage;
+
+import ledger.metrics.LatencyHistogram;
+import ledger.metrics.Metrics;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.CRC32;
+
+// Every logical ledger operation (a debit plus its savings split, a loan repayment, ...) is written
+// to ledger.wal as one checksummed record and fsynced before any CSV is touched. If the process
+// dies halfway through updating the CSVs, recover() replays the record on the next start.
+//
+// Appends record the byte offset they were written at, so replaying truncates the CSV back to
+// that offset before appending again and a record can be applied any number of times.
+// Patches overwrite a fixed byte range and are naturally safe to repeat.
+// A batch that fails while being applied is undone from the bytes its patches and rewrites replaced.
+// Records from concurrent committers are fsynced together (group commit) by one flusher thread.
+// A replicator, if set, is handed each batch's records once they are applied.
+public class WriteAheadLog implements Closeable {
+    public static final String WAL_FILE = "ledger.wal";
+    private static final String SEPARATOR = System.lineSeparator();
+    // Once the log is this large the CSVs are synced and the log starts over
+    private static final long CHECKPOINT_BYTES = 4L << 20;
+
+    // commit covers queueing, the shared fsync and applying the CSV appends and rewrites
+    private static final LatencyHistogram commitLatency = Metrics.histogram("wal.commit");
+    private static final LatencyHistogram fsyncLatency = Metrics.histogram("wal.fsync");
+    private static final LongAdder records = Metrics.counter("wal.records");
+    private static final LongAdder batches = Metrics.counter("wal.batches");
+    private static final LongAdder failures = Metrics.counter("wal.failures");
+
+    private final Path directory;
+    private final FileChannel channel;
+    private final Map<String, Long> projectedLengths = new HashMap<>();
+    private final Set<String> dirtyFiles = new HashSet<>();
+    private final ArrayDeque<Pending> queue = new ArrayDeque<>();
+    private final Thread flusher;
+    private volatile ReplicationServer replicator;
+    private long nextSequence = 1;
+    private boolean closed;
+
+    public static class Operation {
+        private final String name;
+        private final List<Effect> effects = new ArrayList<>();
+        private final List<Runnable> commitActions = new ArrayList<>();
+
+        public Operation(String name) {
+            this.name = name;
+        }
+
+        public Operation append(String file, String line) {
+            effects.add(new Effect('A', file, line + SEPARATOR));
+            return this;
+        }
+
+        // Overwrites bytes in place; the file keeps its length as long as the patch fits inside it
+        public Operation patch(String file, long offset, String content) {
+            Effect effect = new Effect('P', file, content);
+            effect.offset = offset;
+            effects.add(effect);
+            return this;
+        }
+
+        // Byte offset the first append to file was written at; valid once the operation has committed
+        public long appendOffset(String file) {
+            for (Effect effect : effects) {
+                if (effect.kind == 'A' && effect.file.equals(file)) return effect.offset;
+            }
+            return -1;
+        }
+
+        public Operation rewrite(String file, List<String> lines) {
+            StringBuilder content = new StringBuilder();
+            for (String line : lines) content.append(line).append(SEPARATOR);
+            effects.add(new Effect('W', file, content.toString()));
+            return this;
+        }
+
+        // In-memory changes that must only happen once the operation is durable
+        public Operation onCommit(Runnable action) {
+            commitActions.add(action);
+            return this;
+        }
+
+        public String getName() { return name; }
+        public boolean isEmpty() { return effects.isEmpty(); }
+    }
+
+    public static class Effect {
+        public final char kind;
+        public final String file;
+        public final String content;
+        public long offset;
+
+        Effect(char kind, String file, String content) {
+            this.kind = kind;
+            this.file = file;
+            this.content = content;
+        }
+    }
+
+    // What applying an effect overwrote, so a failed batch can be put back: the file's length before
+    // it (-1 if there was no file) and the bytes a patch or rewrite replaced
+    private static class Undo {
+        final Effect effect;
+        final long length;
+        final byte[] before;
+
+        private Undo(Effect effect, long length, byte[] before) {
+            this.effect = effect;
+            this.length = length;
+            this.before = before;
+        }
+
+        // Appends only ever add at their offset, so nothing needs reading for them
+        static Undo of(Path directory, Effect effect) throws IOException {
+            if (effect.kind == 'A') return new Undo(effect, effect.offset, null);
+            Path path = directory.resolve(effect.file);
+            if (!Files.exists(path)) return new Undo(effect, -1, null);
+            if (effect.kind == 'W') return new Undo(effect, Files.size(path), Files.readAllBytes(path));
+            try (FileChannel file = FileChannel.open(path, StandardOpenOption.READ)) {
+                long length = file.size();
+                int patched = effect.content.getBytes(StandardCharsets.UTF_8).length;
+                ByteBuffer before = ByteBuffer.allocate((int) Math.max(0, Math.min(patched, length - effect.offset)));
+                while (before.hasRemaining()) {
+                    if (file.read(before, effect.offset + before.position()) < 0) break;
+                }
+                return new Undo(effect, length, before.array());
+            }
+        }
+
+        void restore(Path directory) throws IOException {
+            Path path = directory.resolve(effect.file);
+            if (length < 0) {
+                Files.deleteIfExists(path);
+            } else if (effect.kind == 'W') {
+                Path temp = path.resolveSibling(effect.file + ".tmp");
+                Files.write(temp, before);
+                Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } else if (Files.exists(path)) {
+                try (FileChannel file = FileChannel.open(path, StandardOpenOption.WRITE)) {
+                    if (before != null) {
+                        ByteBuffer buffer = ByteBuffer.wrap(before);
+                        long position = effect.offset;
+                        while (buffer.hasRemaining()) position += file.write(buffer, position);
+                    }
+                    if (file.size() > length) file.truncate(length);
+                }
+            }
+        }
+    }
+
+    private static class Pending {
+        final List<Effect> effects;
+        final byte[] record;
+        boolean done;
+        IOException error;
+
+        Pending(List<Effect> effects, byte[] record) {
+            this.effects = effects;
+            this.record = record;
+        }
+    }
+
+    private WriteAheadLog(Path directory) throws IOException {
+        this.directory = directory;
+        this.channel = FileChannel.open(directory.resolve(WAL_FILE),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.channel.position(channel.size());
+        this.flusher = new Thread(this::flushLoop, "ledger-wal-flusher");
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+    }
+
+    // Replays whatever the log still holds, checkpoints, and returns a log ready for new operations
+    public static WriteAheadLog open(Path directory) throws IOException {
+        int replayed = recover(directory);
+        if (replayed > 0) {
+            System.out.println("Recovered " + replayed + " ledger operation(s) from the write-ahead log.");
+        }
+        return new WriteAheadLog(directory);
+    }
+
+    // Ships every batch to followers after it is applied
+    public void setReplicator(ReplicationServer replicator) {
+        this.replicator = replicator;
+    }
+
+    public static int recover(Path directory) throws IOException {
+        Path walPath = directory.resolve(WAL_FILE);
+        if (!Files.exists(walPath)) return 0;
+
+        int replayed = 0;
+        Set<String> touched = new HashSet<>();
+        try (BufferedReader reader = Files.newBufferedReader(walPath, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                List<Effect> effects = decode(line);
+                if (effects == null) {
+                    // Torn or corrupt tail from a crash mid-write; nothing after it was acknowledged
+                    break;
+                }
+                for (Effect effect : effects) {
+                    apply(directory, effect);
+                    touched.add(effect.file);
+                }
+                replayed++;
+            }
+        }
+
+        for (String file : touched) force(directory.resolve(file));
+        try (FileChannel wal = FileChannel.open(walPath, StandardOpenOption.WRITE)) {
+            wal.truncate(0);
+            wal.force(true);
+        }
+        return replayed;
+    }
+
+    // Logs the operation durably, applies it to the CSV files, then runs its in-memory actions
+    public void commit(Operation op) throws IOException {
+        if (op.isEmpty()) {
+            op.commitActions.forEach(Runnable::run);
+            return;
+        }
+
+        long start = System.nanoTime();
+        Pending pending;
+        synchronized (this) {
+            if (closed) throw new IOException("Write-ahead log is closed");
+            long sequence = nextSequence++;
+            List<Effect> effects = new ArrayList<>(op.effects);
+            for (Effect effect : effects) {
+                long length = effect.content.getBytes(StandardCharsets.UTF_8).length;
+                if (effect.kind == 'A') {
+                    effect.offset = projectedLength(effect.file);
+                    projectedLengths.put(effect.file, effect.offset + length);
+                } else if (effect.kind == 'P') {
+                    projectedLengths.put(effect.file, Math.max(projectedLength(effect.file), effect.offset + length));
+                } else {
+                    projectedLengths.put(effect.file, length);
+                }
+            }
+            pending = new Pending(effects, encode(sequence, op.name, effects));
+            queue.add(pending);
+            notifyAll();
+        }
+
+        synchronized (pending) {
+            while (!pending.done) {
+                try {
+                    pending.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted waiting for write-ahead log");
+                }
+            }
+        }
+        commitLatency.recordSince(start);
+        if (pending.error != null) throw pending.error;
+        op.commitActions.forEach(Runnable::run);
+    }
+
+    private void flushLoop() {
+        while (true) {
+            List<Pending> batch;
+            synchronized (this) {
+                while (queue.isEmpty() && !closed) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                if (queue.isEmpty()) return;
+                batch = new ArrayList<>(queue);
+                queue.clear();
+            }
+
+            IOException error = null;
+            long logStart = -1;
+            List<Undo> applied = new ArrayList<>();
+            try {
+                // One write and one fsync for every operation that arrived while the last batch synced
+                logStart = channel.position();
+                int size = 0;
+                for (Pending pending : batch) size += pending.record.length;
+                ByteBuffer buffer = ByteBuffer.allocate(size);
+                for (Pending pending : batch) buffer.put(pending.record);
+                buffer.flip();
+                while (buffer.hasRemaining()) channel.write(buffer);
+                long syncStart = System.nanoTime();
+                channel.force(false);
+                fsyncLatency.recordSince(syncStart);
+                records.add(batch.size());
+                batches.increment();
+
+                for (Pending pending : batch) {
+                    for (Effect effect : pending.effects) {
+                        applied.add(Undo.of(directory, effect));
+                        apply(directory, effect);
+                        dirtyFiles.add(effect.file);
+                    }
+                }
+                checkpointIfLarge();
+                ReplicationServer replicator = this.replicator;
+                if (replicator != null) replicator.replicate(buffer.array());
+            } catch (IOException e) {
+                failures.increment();
+                error = e;
+                batch.addAll(rollBack(applied, logStart));
+            }
+
+            for (Pending pending : batch) {
+                synchronized (pending) {
+                    pending.error = error;
+                    pending.done = true;
+                    pending.notifyAll();
+                }
+            }
+        }
+    }
+
+    // Undoes a batch that failed to log or apply, so its callers' failure is final: every effect
+    // already applied is put back, last first (appends cut off, patched bytes and rewritten files
+    // restored), then the records are cut from the log and lengths are projected from the files again.
+    // Operations queued since were projected past the failed batch, so they are taken off the queue
+    // and returned to be failed with it.
+    private List<Pending> rollBack(List<Undo> applied, long logStart) {
+        try {
+            for (int i = applied.size() - 1; i >= 0; i--) applied.get(i).restore(directory);
+            if (logStart >= 0 && channel.size() > logStart) {
+                channel.truncate(logStart);
+                channel.force(true);
+            }
+        } catch (IOException e) {
+            // Projections are still re-read below; if the CSVs could not be put back, the records stay
+            // in the log and restart completes the operations instead
+            failures.increment();
+        }
+
+        synchronized (this) {
+            projectedLengths.clear();
+            List<Pending> queued = new ArrayList<>(queue);
+            queue.clear();
+            return queued;
+        }
+    }
+
+    private void checkpointIfLarge() throws IOException {
+        if (channel.size() < CHECKPOINT_BYTES) return;
+        checkpoint();
+    }
+
+    // Syncs the CSVs the log has changed, after which the log is no longer needed
+    private void checkpoint() throws IOException {
+        for (String file : dirtyFiles) force(directory.resolve(file));
+        dirtyFiles.clear();
+        channel.truncate(0);
+        channel.force(true);
+    }
+
+    private long projectedLength(String file) throws IOException {
+        Long length = projectedLengths.get(file);
+        if (length == null) {
+            Path path = directory.resolve(file);
+            length = Files.exists(path) ? Files.size(path) : 0L;
+        }
+        return length;
+    }
+
+    private static void apply(Path directory, Effect effect) throws IOException {
+        Path path = directory.resolve(effect.file);
+        byte[] bytes = effect.content.getBytes(StandardCharsets.UTF_8);
+        if (effect.kind == 'A') {
+            try (FileChannel file = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+                // On replay the line may already be there; cut back to where it belongs and write it again
+                if (file.size() > effect.offset) file.truncate(effect.offset);
+                file.position(Math.min(effect.offset, file.size()));
+                ByteBuffer buffer = ByteBuffer.wrap(bytes);
+                while (buffer.hasRemaining()) file.write(buffer);
+            }
+        } else if (effect.kind == 'P') {
+            try (FileChannel file = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+                ByteBuffer buffer = ByteBuffer.wrap(bytes);
+                long position = effect.offset;
+                while (buffer.hasRemaining()) position += file.write(buffer, position);
+            }
+        } else {
+            Path temp = path.resolveSibling(effect.file + ".tmp");
+            Files.write(temp, bytes);
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+    }
+
+    private static void force(Path path) throws IOException {
+        if (!Files.exists(path)) return;
+        try (FileChannel file = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            file.force(true);
+        }
+    }
+
+    // Records that replace file with content, or append content at offset, as sent to a follower
+    // that is catching up
+    static byte[] encodeRewrite(String file, String content) {
+        return encode(0, "sync", Collections.singletonList(new Effect('W', file, content)));
+    }
+
+    static byte[] encodeAppend(String file, long offset, String content) {
+        Effect effect = new Effect('A', file, content);
+        effect.offset = offset;
+        return encode(0, "sync", Collections.singletonList(effect));
+    }
+
+    // seq|name|A,file,offset,base64|P,file,offset,base64|W,file,base64|...|crc
+    private static byte[] encode(long sequence, String name, List<Effect> effects) {
+        Base64.Encoder base64 = Base64.getEncoder();
+        StringBuilder record = new StringBuilder();
+        record.append(sequence).append('|').append(name);
+        for (Effect effect : effects) {
+            record.append('|').append(effect.kind).append(',').append(effect.file).append(',');
+            if (effect.kind == 'A' || effect.kind == 'P') record.append(effect.offset).append(',');
+            record.append(base64.encodeToString(effect.content.getBytes(StandardCharsets.UTF_8)));
+        }
+        long crc = checksum(record.toString());
+        record.append('|').append(crc).append('\n');
+        return record.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    // Effects of one record, or null if the record is torn or corrupt
+    public static List<Effect> decode(String line) {
+        int crcStart = line.lastIndexOf('|');
+        if (crcStart < 0) return null;
+        String body = line.substring(0, crcStart);
+        try {
+            if (Long.parseLong(line.substring(crcStart + 1)) != checksum(body)) return null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+
+        Base64.Decoder base64 = Base64.getDecoder();
+        String[] fields = body.split("\\|");
+        List<Effect> effects = new ArrayList<>();
+        for (int i = 2; i < fields.length; i++) {
+            String[] parts = fields[i].split(",", -1);
+            char kind = parts[0].charAt(0);
+            String content = new String(base64.decode(parts[parts.length - 1]), StandardCharsets.UTF_8);
+            Effect effect = new Effect(kind, parts[1], content);
+            if (kind == 'A' || kind == 'P') effect.offset = Long.parseLong(parts[2]);
+            effects.add(effect);
+        }
+        return effects;
+    }
+
+    private static long checksum(String text) {
+        CRC32 crc = new CRC32();
+        crc.update(text.getBytes(StandardCharsets.UTF_8));
+        return crc.getValue();
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            closed = true;
+            notifyAll();
+        }
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // Everything logged has been applied, so a clean restart has nothing to replay
+        try {
+            if (!flusher.isAlive()) checkpoint();
+        } finally {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package ledger.analytics;
+
+import ledger.model.Transaction;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.*;
+
+// Run with a large heap, e.g. java -Xmx6g ledger.analytics.SystemAnalyticsBenchmark 10000000
+public class SystemAnalyticsBenchmark {
+    private static final String[] DESCRIPTIONS = {
+            "makan", "transport", "grab", "rent", "groceries", "flight", "movie", "electric bill",
+            "water bill", "phone", "coffee", "books", "gym", "insurance", "salary", "petrol"
+    };
+
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 10_000_000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+        System.out.printf("Generating %,d transactions...%n", count);
+        List<Transaction> transactions = generate(count, 42);
+
+        long start = System.nanoTime();
+        SystemAnalytics.Columns columns = SystemAnalytics.Columns.of(transactions);
+        System.out.printf("Column build: %d ms%n", (System.nanoTime() - start) / 1_000_000);
+
+        Map<String, BigDecimal> expectedMonthly = null;
+        Map<String, BigDecimal> expectedCategories = null;
+        SystemAnalytics.Report report = null;
+        for (int round = 1; round <= rounds; round++) {
+            start = System.nanoTime();
+            expectedMonthly = DataVisualization.monthlySpending(transactions);
+            expectedCategories = DataVisualization.categorySpending(transactions);
+            long sequential = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            report = SystemAnalytics.analyze(columns, List.of(), List.of());
+            long parallel = System.nanoTime() - start;
+
+            System.out.printf("Round %d: sequential %d ms | fork-join %d ms%n",
+                    round, sequential / 1_000_000, parallel / 1_000_000);
+        }
+
+        boolean identical = expectedMonthly.equals(report.getMonthlySpending())
+                && expectedCategories.equals(report.getCategorySpending());
+        System.out.println(identical ? "Results identical." : "RESULTS DIFFER!");
+    }
+
+    static List<Transaction> generate(int count, long seed) {
+        Random random = new Random(seed);
+        LocalDate start = LocalDate.of(2020, 1, 1);
+        List<Transaction> transactions = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++) {
+            transactions.add(new Transaction(
+                    i,
+                    1 + random.nextInt(100_000),
+                    random.nextInt(3) == 0 ? "debit" : "credit",
+                    BigDecimal.valueOf(1 + random.nextInt(500_000), 2),
+                    DESCRIPTIONS[random.nextInt(DESCRIPTIONS.length)],
+                    start.plusDays(random.nextInt(5 * 365))
+            ));
+        }
+        return transactions;
+    }
+}
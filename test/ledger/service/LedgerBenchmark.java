@@ -0,0 +1,155 @@
+package ledger.service;
+
+import ledger.analytics.DataVisualization;
+import ledger.model.Transaction;
+import ledger.storage.LedgerSnapshot;
+
+import java.io.*;
+import java.math.BigDecimal;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.Callable;
+
+// Microbenchmarks for the ledger hot paths, run against generated data.
+// Usage: java ledger.service.LedgerBenchmark [transactionCounts, e.g. 10000,100000,1000000] [users]
+public class LedgerBenchmark {
+    private static final int WARMUP_ITERATIONS = 5;
+    private static final int MEASURED_ITERATIONS = 10;
+    private static final PrintStream console = System.out;
+    private static final PrintStream silent = new PrintStream(OutputStream.nullOutputStream());
+
+    interface Body {
+        void run() throws Exception;
+    }
+
+    public static void main(String[] args) throws Exception {
+        String[] sizes = (args.length > 0 ? args[0] : "10000,100000,1000000").split(",");
+        int userCount = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+
+        console.printf("%-40s %12s %12s %12s%n", "Benchmark", "avg ms/op", "min ms/op", "ops/s");
+        for (String size : sizes) {
+            int transactionCount = Integer.parseInt(size.trim());
+            Path dir = Files.createTempDirectory("ledger-bench-");
+            LedgerDataGenerator.generate(dir, userCount, transactionCount, 42);
+            runSuite(dir, transactionCount);
+        }
+    }
+
+    private static void runSuite(Path dir, int size) throws Exception {
+        String suffix = " [" + size + "]";
+
+        // The first open rolls old rows into the archive; every measured open then loads the same rows
+        silently(() -> {
+            new LedgerSystem(dir, new Scanner("")).close();
+            return null;
+        });
+        run("loadInitialData" + suffix, 1, () -> {
+            // Without a snapshot this is the full CSV parse
+            Files.deleteIfExists(dir.resolve(LedgerSnapshot.SNAPSHOT_FILE));
+            new LedgerSystem(dir, new Scanner("")).close();
+        });
+
+        String email = LedgerDataGenerator.email(1);
+        LedgerSystem[] ledger = {silently(() -> open(dir, email))};
+        int userId = ledger[0].currentUser().getUserId();
+        // Dropping the cached session makes every login read the user's data again
+        run("login (loadUserData)" + suffix, 1, () -> {
+            ledger[0].invalidateSession(userId);
+            ledger[0].login(email, LedgerDataGenerator.PASSWORD);
+        });
+
+        // Each iteration starts from the generated data, so all of them append to the same size
+        Path csv = dir.resolve("transactions.csv");
+        long generatedLength = Files.size(csv);
+        int batch = 100;
+        run("recordTransaction x" + batch + suffix, batch, () -> {
+            ledger[0].close();
+            try (FileChannel file = FileChannel.open(csv, StandardOpenOption.WRITE)) {
+                file.truncate(generatedLength);
+            }
+            Files.deleteIfExists(dir.resolve(LedgerSnapshot.SNAPSHOT_FILE));
+            ledger[0] = open(dir, email);
+        }, () -> {
+            for (int i = 0; i < batch; i++) {
+                ledger[0].recordTransaction("credit", "12.34", "coffee");
+            }
+        });
+
+        List<Transaction> history = silently(ledger[0]::userTransactions);
+        LocalDate end = LocalDate.now();
+        LocalDate start = end.minusMonths(6);
+        run("history: userTransactions" + suffix, 1, ledger[0]::userTransactions);
+        run("history: filterByDateRange" + suffix, 1,
+                () -> LedgerSystem.filterByDateRange(history, start, end));
+        run("history: filterByType" + suffix, 1, () -> LedgerSystem.filterByType(history, "debit"));
+        run("history: filterByAmountRange" + suffix, 1, () -> LedgerSystem.filterByAmountRange(
+                history, BigDecimal.TEN, BigDecimal.valueOf(1000)));
+        run("history: sortByDate" + suffix, 1, () -> LedgerSystem.sortByDate(history, true));
+        run("history: sortByAmount" + suffix, 1, () -> LedgerSystem.sortByAmount(history, true));
+
+        run("analytics: monthlySpending" + suffix, 1, () -> DataVisualization.monthlySpending(history));
+        run("analytics: categorySpending" + suffix, 1, () -> DataVisualization.categorySpending(history));
+
+        run("hashPassword" + suffix, 1, () -> LedgerSystem.hashPassword(LedgerDataGenerator.PASSWORD));
+        ledger[0].close();
+    }
+
+    private static LedgerSystem open(Path dir, String email) {
+        LedgerSystem ledger = new LedgerSystem(dir, new Scanner(""));
+        ledger.login(email, LedgerDataGenerator.PASSWORD);
+        return ledger;
+    }
+
+    // Runs body repeatedly with console output suppressed and reports per-operation time
+    private static void run(String name, int opsPerCall, Body body) throws Exception {
+        run(name, opsPerCall, () -> { }, body);
+    }
+
+    // As above, running reset untimed before every iteration
+    private static void run(String name, int opsPerCall, Body reset, Body body) throws Exception {
+        // Pick a call count per iteration so each iteration lasts long enough to time reliably
+        time(reset);
+        long single = time(body);
+        int calls = (int) Math.max(1, Math.min(10_000, 50_000_000L / Math.max(1, single)));
+
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            time(reset);
+            for (int c = 0; c < calls; c++) time(body);
+        }
+
+        double total = 0;
+        double min = Double.MAX_VALUE;
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            time(reset);
+            long elapsed = 0;
+            for (int c = 0; c < calls; c++) elapsed += time(body);
+            double perOp = elapsed / 1e6 / calls / opsPerCall;
+            total += perOp;
+            min = Math.min(min, perOp);
+        }
+        double avg = total / MEASURED_ITERATIONS;
+        console.printf("%-40s %12.4f %12.4f %12.0f%n", name, avg, min, 1000 / avg);
+    }
+
+    private static long time(Body body) throws Exception {
+        System.setOut(silent);
+        try {
+            long start = System.nanoTime();
+            body.run();
+            return System.nanoTime() - start;
+        } finally {
+            System.setOut(console);
+        }
+    }
+
+    private static <T> T silently(Callable<T> call) throws Exception {
+        System.setOut(silent);
+        try {
+            return call.call();
+        } finally {
+            System.setOut(console);
+        }
+    }
+}
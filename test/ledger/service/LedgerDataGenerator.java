@@ -0,0 +1,238 @@
+package ledger.service;
+
+import ledger.model.AmortizationSchedule;
+
+import java.io.*;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.Random;
+
+// Writes a synthetic set of ledger CSVs for benchmarks and load tests.
+// Every generated user has the password "password1".
+//
+// Usage: java ledger.service.LedgerDataGenerator <dir> <users> <transactions> [years] [seed]
+// Rows are streamed straight to disk, so 100M transactions only need a few MB of heap.
+public class LedgerDataGenerator {
+    public static final String PASSWORD = "password1";
+    private static final int BUFFER_SIZE = 1 << 20;
+    // Share of rows that are debits (money in); the rest are spending
+    private static final double DEBIT_SHARE = 0.2;
+    private static final double SAVINGS_USER_SHARE = 0.3;
+    private static final double LOAN_USER_SHARE = 0.1;
+
+    // Spending vocabulary: description, relative frequency, typical amount in dollars
+    private static final String[] SPEND_DESCRIPTIONS = {
+            "makan", "makan makan", "coffee", "nasi lemak", "groceries", "grab", "transport", "petrol",
+            "toll", "parking", "phone bill", "electric bill", "water bill", "internet", "rent", "insurance",
+            "movie", "netflix", "books", "shopee", "clothes", "gift", "flight", "hotel", "gym"
+    };
+    private static final int[] SPEND_WEIGHTS = {
+            30, 6, 20, 10, 14, 16, 8, 10, 5, 6, 3, 3, 2, 3, 1, 1, 3, 2, 2, 6, 3, 2, 1, 1, 2
+    };
+    private static final double[] SPEND_TYPICAL = {
+            12, 25, 6, 5, 80, 15, 10, 60, 5, 4, 60, 90, 20, 100, 900, 150, 18, 55, 40, 45, 70, 60, 450, 300, 120
+    };
+    private static final String[] DEBIT_DESCRIPTIONS = {"salary", "allowance", "bonus", "refund", "daddy", "freelance"};
+    private static final int[] DEBIT_WEIGHTS = {50, 15, 5, 10, 10, 10};
+    private static final double[] DEBIT_TYPICAL = {3500, 500, 2000, 40, 300, 800};
+
+    public static String email(int userId) {
+        return "user" + userId + "@example.com";
+    }
+
+    public static void generate(Path dir, int userCount, int transactionCount, long seed) throws IOException {
+        generate(dir, userCount, transactionCount, 2, seed);
+    }
+
+    public static void generate(Path dir, int userCount, long transactionCount, int years, long seed) throws IOException {
+        Files.createDirectories(dir);
+        Random random = new Random(seed);
+        LocalDate today = LocalDate.now();
+        LocalDate start = today.minusYears(years);
+
+        writeUsers(dir, userCount, today, random);
+        writeTransactions(dir, userCount, transactionCount, start, today, random);
+        writeSavings(dir, userCount, random);
+        writeLoans(dir, userCount, today, random);
+    }
+
+    private static void writeUsers(Path dir, int userCount, LocalDate today, Random random) throws IOException {
+        String passwordHash = LedgerSystem.hashPassword(PASSWORD);
+        try (Writer writer = writer(dir.resolve("users.csv"))) {
+            writer.write("user_id,name,email,password_hash,last_login_date\n");
+            StringBuilder line = new StringBuilder(160);
+            for (int userId = 1; userId <= userCount; userId++) {
+                line.setLength(0);
+                line.append(userId).append(",user ").append(userId).append(',')
+                        .append(email(userId)).append(',').append(passwordHash).append(',')
+                        .append(today.minusDays(random.nextInt(60))).append('\n');
+                writer.append(line);
+            }
+        }
+    }
+
+    // Transactions are written in date order. Daily volume grows over the period and is higher on
+    // weekends and around month end; salaries land on the 25th. A few users account for most rows.
+    private static void writeTransactions(Path dir, int userCount, long transactionCount, LocalDate start,
+                                          LocalDate end, Random random) throws IOException {
+        int days = (int) ChronoUnit.DAYS.between(start, end) + 1;
+        double[] dayWeight = new double[days];
+        double totalWeight = 0;
+        for (int day = 0; day < days; day++) {
+            LocalDate date = start.plusDays(day);
+            double weight = 1 + (double) day / days;  // volume doubles over the period
+            if (date.getDayOfWeek() == DayOfWeek.SATURDAY || date.getDayOfWeek() == DayOfWeek.SUNDAY) weight *= 1.3;
+            if (date.getDayOfMonth() >= 25) weight *= 1.2;
+            dayWeight[day] = weight;
+            totalWeight += weight;
+        }
+
+        int[] spendCumulative = cumulative(SPEND_WEIGHTS);
+        int[] debitCumulative = cumulative(DEBIT_WEIGHTS);
+
+        try (Writer writer = writer(dir.resolve("transactions.csv"))) {
+            writer.write("transaction_id,user_id,type,amount,description,date\n");
+            StringBuilder line = new StringBuilder(96);
+            long id = 0;
+            double carry = 0;
+            for (int day = 0; day < days && id < transactionCount; day++) {
+                LocalDate date = start.plusDays(day);
+                String dateText = date.toString();
+                boolean payday = date.getDayOfMonth() == 25;
+
+                // Spread rows over days by weight, carrying rounding so the total comes out exact
+                double expected = transactionCount * dayWeight[day] / totalWeight + carry;
+                long rows = day == days - 1 ? transactionCount - id : (long) expected;
+                carry = expected - rows;
+
+                for (long r = 0; r < rows && id < transactionCount; r++) {
+                    int userId = pickUser(userCount, random);
+                    boolean debit = payday ? random.nextDouble() < 0.6 : random.nextDouble() < DEBIT_SHARE;
+                    int kind;
+                    String description;
+                    double typical;
+                    if (debit) {
+                        kind = payday ? 0 : pick(debitCumulative, random);
+                        description = DEBIT_DESCRIPTIONS[kind];
+                        typical = DEBIT_TYPICAL[kind];
+                    } else {
+                        kind = pick(spendCumulative, random);
+                        description = SPEND_DESCRIPTIONS[kind];
+                        typical = SPEND_TYPICAL[kind];
+                    }
+
+                    line.setLength(0);
+                    line.append(++id).append(',').append(userId).append(',')
+                            .append(debit ? "debit" : "credit").append(',');
+                    appendAmount(line, logNormalCents(typical, random));
+                    line.append(',').append(description).append(',').append(dateText).append('\n');
+                    writer.append(line);
+                }
+            }
+        }
+    }
+
+    private static void writeSavings(Path dir, int userCount, Random random) throws IOException {
+        try (Writer writer = writer(dir.resolve("savings.csv"))) {
+            writer.write("savings_id,user_id,status,percentage\n");
+            int id = 0;
+            for (int userId = 1; userId <= userCount; userId++) {
+                if (random.nextDouble() < SAVINGS_USER_SHARE) {
+                    writer.write(++id + "," + userId + ",active," + (5 + 5 * random.nextInt(6)) + "\n");
+                }
+            }
+        }
+    }
+
+    private static void writeLoans(Path dir, int userCount, LocalDate today, Random random) throws IOException {
+        try (Writer writer = writer(dir.resolve("loans.csv"))) {
+            writer.write("loan_id,user_id,principal_amount,interest_rate,repayment_period,outstanding_balance,status,created_at\n");
+            int id = 0;
+            StringBuilder line = new StringBuilder(96);
+            for (int userId = 1; userId <= userCount; userId++) {
+                if (random.nextDouble() >= LOAN_USER_SHARE) continue;
+
+                long principal = 10_000L * (10 + random.nextInt(491));  // $1,000 to $50,000 in cents
+                double rate = 3 + random.nextInt(9);
+                int period = 12 * (1 + random.nextInt(5));
+                LocalDate created = today.minusMonths(random.nextInt(period));
+                boolean repaid = random.nextDouble() < 0.2;
+                long total = AmortizationSchedule.of(BigDecimal.valueOf(principal, 2), rate, period)
+                        .getTotalRepayment().unscaledValue().longValueExact();
+                long outstanding = repaid ? 0 : total - total * random.nextInt(90) / 100;
+
+                line.setLength(0);
+                line.append(++id).append(',').append(userId).append(',');
+                appendAmount(line, principal);
+                line.append(',').append(String.format("%.2f", rate)).append(',').append(period).append(',');
+                appendAmount(line, outstanding);
+                line.append(',').append(repaid ? "repaid" : "active").append(',').append(created).append('\n');
+                writer.append(line);
+            }
+        }
+    }
+
+    // Skewed activity: low user ids are picked far more often than high ones
+    private static int pickUser(int userCount, Random random) {
+        double u = random.nextDouble();
+        return 1 + (int) (userCount * u * u);
+    }
+
+    private static int[] cumulative(int[] weights) {
+        int[] cumulative = new int[weights.length];
+        int sum = 0;
+        for (int i = 0; i < weights.length; i++) {
+            sum += weights[i];
+            cumulative[i] = sum;
+        }
+        return cumulative;
+    }
+
+    private static int pick(int[] cumulative, Random random) {
+        int target = random.nextInt(cumulative[cumulative.length - 1]);
+        int i = 0;
+        while (cumulative[i] <= target) i++;
+        return i;
+    }
+
+    // Amounts cluster around the typical value with a long right tail
+    private static long logNormalCents(double typical, Random random) {
+        double amount = typical * Math.exp(0.6 * random.nextGaussian());
+        return Math.max(1, Math.round(amount * 100));
+    }
+
+    private static void appendAmount(StringBuilder line, long cents) {
+        line.append(cents / 100).append('.');
+        long fraction = cents % 100;
+        if (fraction < 10) line.append('0');
+        line.append(fraction);
+    }
+
+    private static Writer writer(Path file) throws IOException {
+        return new BufferedWriter(new OutputStreamWriter(Files.newOutputStream(file), StandardCharsets.UTF_8),
+                BUFFER_SIZE);
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 3) {
+            System.out.println("Usage: java ledger.service.LedgerDataGenerator <dir> <users> <transactions> [years] [seed]");
+            return;
+        }
+        Path dir = Paths.get(args[0]);
+        int users = Integer.parseInt(args[1]);
+        long transactions = Long.parseLong(args[2]);
+        int years = args.length > 3 ? Integer.parseInt(args[3]) : 2;
+        long seed = args.length > 4 ? Long.parseLong(args[4]) : 42;
+
+        long start = System.nanoTime();
+        generate(dir, users, transactions, years, seed);
+        long elapsed = (System.nanoTime() - start) / 1_000_000;
+        long bytes = Files.size(dir.resolve("transactions.csv"));
+        System.out.printf("Generated %,d users and %,d transactions (%,d MB) in %,d ms%n",
+                users, transactions, bytes >> 20, elapsed);
+    }
+}
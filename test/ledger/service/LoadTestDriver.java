@@ -0,0 +1,308 @@
+package ledger.service;
+
+import ledger.analytics.SystemAnalytics;
+import ledger.metrics.Metrics;
+import ledger.model.User;
+
+import java.io.*;
+import java.math.BigDecimal;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+
+// Replays scripted sessions from many simulated users against one ledger, without a console.
+// Usage: java ledger.service.LoadTestDriver <dataDir> [threads] [sessionsPerThread] [scriptFile]
+//
+// A script is one step per line, run top to bottom for every session:
+//   login | debit <amount> <description> | credit <amount> <description> | history
+//   loan_apply <principal> <rate> <months> | loan_repay <amount> | balance | analytics | logout
+// Blank lines and lines starting with # are ignored. If dataDir has no users.csv it is filled
+// with generated data first.
+//
+// LedgerSystem keeps a single logged-in user, so steps from different threads take turns on the
+// ledger; the numbers measure the ledger itself, including WAL group commit across sessions.
+// With -Dledger.shards=N the data is split into N shards and only sessions on the same shard take
+// turns; analytics runs across all shards. With -Dledger.sequencer=true each shard is driven by a
+// LedgerSequencer instead of a lock; balance reads come from the sequencer's published account views,
+// and history and analytics from its read views, so none of them queue behind writes.
+public class LoadTestDriver {
+    private static final int DEFAULT_USERS = 1000;
+    private static final int DEFAULT_TRANSACTIONS = 100_000;
+    private static final String[] DEFAULT_SCRIPT = {
+            "login",
+            "debit 1500.00 salary",
+            "credit 12.50 makan",
+            "credit 4.20 coffee",
+            "credit 60.00 petrol",
+            "history",
+            "balance",
+            "loan_apply 5000 5 12",
+            "loan_repay 100",
+            "analytics",
+            "logout"
+    };
+
+    private static final PrintStream console = System.out;
+    private static final PrintStream silent = new PrintStream(OutputStream.nullOutputStream());
+
+    private final ShardedLedger ledger;
+    private LedgerSequencer[] sequencers;   // one per shard when mutations go through a sequencer
+    private final List<String[]> script;
+    private final Map<String, List<long[]>> latencies = new ConcurrentHashMap<>();
+    private final Map<String, Outcome> outcomes = new ConcurrentHashMap<>();
+
+    // Successful and failed step counts for one operation type
+    private static class Outcome {
+        final LongAdder ok = new LongAdder();
+        final LongAdder failed = new LongAdder();
+    }
+
+    public LoadTestDriver(ShardedLedger ledger, List<String[]> script) {
+        this.ledger = ledger;
+        this.script = script;
+    }
+
+    // Routes each shard's steps through a single-writer sequencer rather than the shard's lock
+    public void useSequencers() {
+        sequencers = new LedgerSequencer[ledger.shardCount()];
+        for (int k = 0; k < sequencers.length; k++) {
+            LedgerSequencer sequencer = LedgerSequencer.fromProperties(ledger.shard(k), "sequencer.shard" + k);
+            ledger.shard(k).scheduleSavingsSweep(task -> sequencer.submit(null, l -> {
+                task.run();
+                return true;
+            }));
+            sequencers[k] = sequencer;
+        }
+    }
+
+    public void closeSequencers() {
+        if (sequencers == null) return;
+        for (LedgerSequencer sequencer : sequencers) sequencer.close();
+    }
+
+    public static List<String[]> parseScript(List<String> lines) {
+        List<String[]> steps = new ArrayList<>();
+        for (String line : lines) {
+            String trimmed = line.trim();
+            if (trimmed.isEmpty() || trimmed.startsWith("#")) continue;
+            steps.add(trimmed.split("\\s+"));
+        }
+        return steps;
+    }
+
+    // Runs sessionsPerThread sessions on each thread and returns the wall-clock time in nanoseconds
+    public long run(int threads, int sessionsPerThread) throws InterruptedException {
+        int userCount = ledger.userCount();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            workers.add(pool.submit(() -> {
+                // Each thread keeps its samples locally and publishes them once at the end
+                Map<String, long[]> samples = new HashMap<>();
+                Map<String, Integer> counts = new HashMap<>();
+                start.await();
+                for (int s = 0; s < sessionsPerThread; s++) {
+                    int userId = 1 + (thread * sessionsPerThread + s) % userCount;
+                    runSession(userId, samples, counts);
+                }
+                samples.forEach((op, values) -> latencies.computeIfAbsent(op, k -> new CopyOnWriteArrayList<>())
+                        .add(Arrays.copyOf(values, counts.get(op))));
+                return null;
+            }));
+        }
+
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Future<?> worker : workers) {
+            try {
+                worker.get();
+            } catch (ExecutionException e) {
+                console.println("Session thread failed: " + e.getCause());
+            }
+        }
+        long elapsed = System.nanoTime() - begin;
+        pool.shutdown();
+        return elapsed;
+    }
+
+    private void runSession(int userId, Map<String, long[]> samples, Map<String, Integer> counts) {
+        String email = LedgerDataGenerator.email(userId);
+        int shardIndex = ledger.shardFor(email);
+        LedgerSystem shard = ledger.shard(shardIndex);
+        User session = null;
+        for (String[] step : script) {
+            String op = step[0];
+            if (session == null && !op.equals("login")) continue;
+
+            long begin = System.nanoTime();
+            boolean ok;
+            if (sequencers != null) {
+                ok = executeSequenced(step, email, userId, shardIndex, session);
+                if (op.equals("login") && ok) session = lastSession.get();
+                if (op.equals("logout")) session = null;
+            } else if (op.equals("analytics")) {
+                // Locks each shard in turn, so it must not run while holding this one
+                ok = execute(step, email, shard);
+            } else {
+                synchronized (shard) {
+                    shard.resumeSession(session);
+                    ok = execute(step, email, shard);
+                    if (op.equals("login") && ok) session = shard.currentUser();
+                    if (op.equals("logout")) session = null;
+                }
+            }
+            record(op, System.nanoTime() - begin, samples, counts);
+            Outcome outcome = outcomes.computeIfAbsent(op, k -> new Outcome());
+            (ok ? outcome.ok : outcome.failed).increment();
+        }
+    }
+
+    // Session left by the last sequenced command on this thread
+    private final ThreadLocal<User> lastSession = new ThreadLocal<>();
+
+    private boolean executeSequenced(String[] step, String email, int userId, int shardIndex, User session) {
+        try {
+            switch (step[0]) {
+                case "balance":
+                    // Served from the writer's last published view, without queueing behind other writes
+                    LedgerSequencer.AccountView view = sequencers[shardIndex].view(userId);
+                    return view != null && view.balance != null;
+                case "history":
+                    // Includes this session's own writes, which the account view's sequence covers
+                    LedgerSequencer.AccountView own = sequencers[shardIndex].view(userId);
+                    LedgerSystem.displayTransactions(sequencers[shardIndex]
+                            .readView(own == null ? -1 : own.sequence).history(userId));
+                    return true;
+                case "analytics":
+                    List<SystemAnalytics.Report> reports = new ArrayList<>();
+                    for (LedgerSequencer sequencer : sequencers) reports.add(sequencer.readView(-1).systemReport());
+                    SystemAnalytics.showSystemReport(reports.size() == 1 ? reports.get(0) : SystemAnalytics.merge(reports));
+                    return true;
+                default:
+                    LedgerSequencer.Result result = sequencers[shardIndex].execute(session, l -> execute(step, email, l));
+                    lastSession.set(result.session);
+                    return result.ok;
+            }
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+
+    private boolean execute(String[] step, String email, LedgerSystem shard) {
+        try {
+            switch (step[0]) {
+                case "login":
+                    return shard.login(email, LedgerDataGenerator.PASSWORD);
+                case "debit":
+                    return shard.debit(step[1], description(step));
+                case "credit":
+                    return shard.recordTransaction("credit", step[1], description(step));
+                case "history":
+                    shard.viewHistory();
+                    return true;
+                case "balance":
+                    return shard.currentUser().getBalance() != null;
+                case "loan_apply":
+                    return shard.applyForLoan(new BigDecimal(step[1]), Double.parseDouble(step[2]),
+                            Integer.parseInt(step[3]));
+                case "loan_repay":
+                    return shard.repayLoan(new BigDecimal(step[1]));
+                case "analytics":
+                    SystemAnalytics.showSystemReport(ledger.systemReport());
+                    return true;
+                case "logout":
+                    shard.logout();
+                    return true;
+                default:
+                    return false;
+            }
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+
+    private static String description(String[] step) {
+        return String.join(" ", Arrays.copyOfRange(step, Math.min(2, step.length), step.length));
+    }
+
+    private static void record(String op, long nanos, Map<String, long[]> samples, Map<String, Integer> counts) {
+        long[] values = samples.computeIfAbsent(op, k -> new long[64]);
+        int count = counts.getOrDefault(op, 0);
+        if (count == values.length) {
+            values = Arrays.copyOf(values, count * 2);
+            samples.put(op, values);
+        }
+        values[count] = nanos;
+        counts.put(op, count + 1);
+    }
+
+    public void report(long elapsedNanos) {
+        long totalSteps = 0;
+        console.printf("%-12s %9s %7s %10s %10s %10s %10s %10s%n",
+                "Operation", "count", "failed", "ops/s", "p50 ms", "p90 ms", "p99 ms", "max ms");
+        for (String op : new TreeSet<>(latencies.keySet())) {
+            long[] all = latencies.get(op).stream().flatMapToLong(Arrays::stream).sorted().toArray();
+            totalSteps += all.length;
+            console.printf("%-12s %,9d %,7d %10.1f %10.3f %10.3f %10.3f %10.3f%n",
+                    op, all.length, outcomes.get(op).failed.sum(),
+                    all.length * 1e9 / elapsedNanos,
+                    percentile(all, 50), percentile(all, 90), percentile(all, 99), all[all.length - 1] / 1e6);
+        }
+        console.printf("%nTotal: %,d steps in %.2f s (%.1f steps/s)%n",
+                totalSteps, elapsedNanos / 1e9, totalSteps * 1e9 / elapsedNanos);
+    }
+
+    private static double percentile(long[] sorted, double percentile) {
+        int index = (int) Math.ceil(percentile / 100 * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1e6;
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.out.println("Usage: java ledger.service.LoadTestDriver <dataDir> [threads] [sessionsPerThread] [scriptFile]");
+            return;
+        }
+        Path dir = Paths.get(args[0]);
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+        int sessions = args.length > 2 ? Integer.parseInt(args[2]) : 50;
+        List<String[]> script = parseScript(args.length > 3
+                ? Files.readAllLines(Paths.get(args[3]))
+                : Arrays.asList(DEFAULT_SCRIPT));
+
+        int shards = Integer.getInteger("ledger.shards", 1);
+        Path firstShard = shards == 1 ? dir : ShardedLedger.shardDirectory(dir, 0);
+        if (!Files.exists(firstShard.resolve("users.csv"))) {
+            console.printf("Generating %,d users and %,d transactions in %s%n", DEFAULT_USERS, DEFAULT_TRANSACTIONS, dir);
+            LedgerDataGenerator.generate(dir, DEFAULT_USERS, DEFAULT_TRANSACTIONS, 42);
+            if (shards > 1) ShardedLedger.partition(dir, dir, shards);
+        }
+
+        System.setOut(silent);
+        ShardedLedger ledger;
+        long elapsed;
+        LoadTestDriver driver;
+        try {
+            ledger = ShardedLedger.open(dir, shards);
+            driver = new LoadTestDriver(ledger, script);
+            if (Boolean.getBoolean("ledger.sequencer")) {
+                driver.useSequencers();
+            } else {
+                ledger.scheduleSavingsSweeps();
+            }
+            elapsed = driver.run(threads, sessions);
+            driver.closeSequencers();
+            ledger.close();
+        } finally {
+            System.setOut(console);
+        }
+
+        console.printf("%d threads x %d sessions, %d steps per session, %d shard(s)%n%n",
+                threads, sessions, script.size(), shards);
+        driver.report(elapsed);
+        console.println();
+        Metrics.dump(console);
+    }
+}
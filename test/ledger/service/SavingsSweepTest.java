@@ -0,0 +1,91 @@
+package ledger.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.Scanner;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SavingsSweepTest {
+    @TempDir
+    Path dir;
+
+    private LedgerSystem open() {
+        return new LedgerSystem(dir, new Scanner(""));
+    }
+
+    private static BigDecimal total(LedgerSystem ledger) {
+        return ledger.currentUser().getBalance().add(ledger.currentUser().getSavings());
+    }
+
+    @Test
+    void sweepMovesSavingsBackWithoutCreatingMoney() {
+        LedgerSystem ledger = open();
+        ledger.register("Ann", "ann@example.com", "secret1");
+        ledger.login("ann@example.com", "secret1");
+        ledger.setSavings(10);
+        ledger.debit("100", "salary");
+        assertEquals(new BigDecimal("90.00"), ledger.currentUser().getBalance());
+        assertEquals(new BigDecimal("10.00"), ledger.currentUser().getSavings());
+
+        ledger.logout();
+        ledger.login("ann@example.com", "secret1");
+        assertEquals(new BigDecimal("90.00"), ledger.currentUser().getBalance());
+        assertEquals(new BigDecimal("100.00"), total(ledger));
+
+        assertEquals(1, ledger.sweepMonthlySavings(LocalDate.now()));
+        assertEquals(new BigDecimal("100.00"), ledger.currentUser().getBalance());
+        assertEquals(new BigDecimal("100.00"), total(ledger));
+        ledger.close();
+
+        LedgerSystem reopened = open();
+        reopened.login("ann@example.com", "secret1");
+        assertEquals(new BigDecimal("100.00"), reopened.currentUser().getBalance());
+        assertEquals(0, reopened.sweepMonthlySavings(LocalDate.now()));
+        assertEquals(new BigDecimal("100.00"), total(reopened));
+        reopened.close();
+    }
+
+    @Test
+    void systemReportCountsSaversWhoHaveNotLoggedIn() {
+        LedgerSystem ledger = open();
+        for (String email : new String[]{"ann@example.com", "ben@example.com"}) {
+            ledger.register("User", email, "secret1");
+            ledger.login(email, "secret1");
+            ledger.setSavings(10);
+            ledger.debit("100", "salary");
+            ledger.logout();
+        }
+        ledger.close();
+
+        LedgerSystem reopened = open();
+        assertEquals(2, reopened.systemReport().getSavingsUsers());
+        assertEquals(new BigDecimal("20.00"), reopened.systemReport().getSavingsTotal());
+        reopened.close();
+    }
+
+    @Test
+    void olderSavingsRowsAreNotPaidOut() throws IOException {
+        LedgerSystem ledger = open();
+        ledger.register("Ann", "ann@example.com", "secret1");
+        ledger.login("ann@example.com", "secret1");
+        ledger.debit("100", "salary");
+        ledger.close();
+        // Written by versions that took the deposit off the balance in memory only
+        Files.writeString(dir.resolve("savings.csv"), "2,1,active,50,50.00,2025-01-04" + System.lineSeparator(),
+                StandardOpenOption.APPEND);
+
+        LedgerSystem reopened = open();
+        reopened.login("ann@example.com", "secret1");
+        assertEquals(0, reopened.sweepMonthlySavings(LocalDate.now()));
+        assertEquals(new BigDecimal("100.00"), total(reopened));
+        reopened.close();
+    }
+}
@@ -0,0 +1,116 @@
+package ledger.service;
+
+import java.io.*;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+
+// Cold-start benchmark for Main, and the training run that writes its AppCDS archive.
+// Every run is a fresh JVM playing a short scripted session (register, log in, debit, credit,
+// history, analytics, log out) in an empty data directory, timed from launch to exit.
+// Usage: java -cp target/ledger.jar:target/test-classes ledger.service.StartupBenchmark [runs] [archive]
+//            compares -Xshare:off, the JDK's default CDS archive and the AppCDS archive if present
+//        java -cp target/ledger.jar:target/test-classes ledger.service.StartupBenchmark dump <archive>
+//            training run that writes the archive on exit (mvn -Pcds package runs this)
+// Main runs from the jar alone, since the archive is only used when Main runs with the classpath it
+// was dumped with, e.g.
+//        java -XX:SharedArchiveFile=target/ledger.jsa -cp target/ledger.jar ledger.service.Main
+public class StartupBenchmark {
+    private static final String DEFAULT_ARCHIVE = "target/ledger.jsa";
+    private static final String SESSION = String.join("\n",
+            "2", "Startup", "startup@example.com", "startup123",
+            "1", "startup@example.com", "startup123",
+            "1", "2500", "salary",
+            "2", "42.50", "makan",
+            "3", "1",
+            "7", "2", "5",
+            "8") + "\n";
+
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0 && args[0].equals("dump")) {
+            Path archive = Paths.get(args.length > 1 ? args[1] : DEFAULT_ARCHIVE).toAbsolutePath();
+            Files.deleteIfExists(archive);
+            runSession("-XX:ArchiveClassesAtExit=" + archive);
+            System.out.printf("Wrote %s (%,d KB)%n", archive, Files.size(archive) / 1024);
+            return;
+        }
+
+        int runs = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+        Path archive = Paths.get(args.length > 1 ? args[1] : DEFAULT_ARCHIVE).toAbsolutePath();
+
+        Map<String, String> modes = new LinkedHashMap<>();
+        modes.put("CDS off", "-Xshare:off");
+        modes.put("JDK default CDS", "-Xshare:auto");
+        if (Files.exists(archive)) {
+            modes.put("AppCDS " + archive.getFileName(), "-XX:SharedArchiveFile=" + archive);
+        } else {
+            System.out.println("No archive at " + archive + "; build it with mvn -Pcds package");
+        }
+
+        System.out.printf("%-24s %10s %10s %10s%n", "Main cold start", "avg ms", "min ms", "max ms");
+        for (Map.Entry<String, String> mode : modes.entrySet()) {
+            runSession(mode.getValue()); // warms the OS page cache, not the JVM
+            long total = 0;
+            long min = Long.MAX_VALUE;
+            long max = 0;
+            for (int i = 0; i < runs; i++) {
+                long millis = runSession(mode.getValue());
+                total += millis;
+                min = Math.min(min, millis);
+                max = Math.max(max, millis);
+            }
+            System.out.printf("%-24s %10.1f %10d %10d%n", mode.getKey(), (double) total / runs, min, max);
+        }
+    }
+
+    // Runs Main on the scripted session in a new data directory; returns the wall time in ms
+    private static long runSession(String jvmOption) throws IOException, InterruptedException {
+        Path dir = Files.createTempDirectory("ledger-startup-");
+        try {
+            List<String> command = new ArrayList<>();
+            command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+            command.add(jvmOption);
+            command.add("-cp");
+            command.add(mainClassPath());
+            command.add(Main.class.getName());
+
+            long start = System.nanoTime();
+            Process process = new ProcessBuilder(command)
+                    .directory(dir.toFile())
+                    .redirectErrorStream(true)
+                    .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                    .start();
+            try (OutputStream input = process.getOutputStream()) {
+                input.write(SESSION.getBytes(StandardCharsets.UTF_8));
+            }
+            process.waitFor();
+            return (System.nanoTime() - start) / 1_000_000;
+        } finally {
+            deleteRecursively(dir);
+        }
+    }
+
+    // The jar or directory Main was loaded from, as an absolute path since the session runs in its own
+    // directory; the benchmark's own classes are left off
+    private static String mainClassPath() throws IOException {
+        try {
+            return Paths.get(Main.class.getProtectionDomain().getCodeSource().getLocation().toURI()).toString();
+        } catch (URISyntaxException e) {
+            throw new IOException("Cannot locate the classes of " + Main.class.getName(), e);
+        }
+    }
+
+    private static void deleteRecursively(Path dir) throws IOException {
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(dir)) {
+            for (Path entry : entries) {
+                if (Files.isDirectory(entry)) {
+                    deleteRecursively(entry);
+                } else {
+                    Files.delete(entry);
+                }
+            }
+        }
+        Files.delete(dir);
+    }
+}
@@ -0,0 +1,40 @@
+package ledger.storage;
+
+import ledger.model.Transaction;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TransactionStoreTest {
+    private static Transaction row(int id, int userId) {
+        return new Transaction(id, userId, id % 3 == 0 ? "credit" : "debit", BigDecimal.valueOf(id, 2),
+                "makan", LocalDate.of(2025, 1, 1).plusDays(id / 500));
+    }
+
+    private static List<Integer> ids(List<Transaction> transactions) {
+        return transactions.stream().map(Transaction::getTransactionId).collect(Collectors.toList());
+    }
+
+    @Test
+    void forUserMatchesAFullScanAcrossSealedBlocksAndTheTail() {
+        TransactionStore store = new TransactionStore();
+        int id = 1;
+        for (; id <= TransactionStore.BLOCK_ROWS * 2 + 100; id++) store.add(row(id, id % 7 == 0 ? 3 : 1 + id % 5));
+        assertEquals(ids(filter(store, 3)), ids(store.forUser(3)));
+
+        // Blocks sealed after the first lookup are picked up by the next one
+        for (int end = id + TransactionStore.BLOCK_ROWS; id <= end; id++) store.add(row(id, id % 11 == 0 ? 3 : 2));
+        assertEquals(ids(filter(store, 3)), ids(store.forUser(3)));
+        assertEquals(ids(filter(store, 2)), ids(store.forUser(2)));
+        assertEquals(0, store.forUser(99).size());
+    }
+
+    private static List<Transaction> filter(TransactionStore store, int userId) {
+        return store.toList().stream().filter(t -> t.getUserId() == userId).collect(Collectors.toList());
+    }
+}
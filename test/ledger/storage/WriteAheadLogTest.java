@@ -0,0 +1,44 @@
+package ledger.storage;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class WriteAheadLogTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    void failedOperationLeavesNoPatchRewriteOrAppendBehind() throws IOException {
+        String users = "id,name" + System.lineSeparator() + "1,ann" + System.lineSeparator();
+        String loans = "id,status" + System.lineSeparator() + "1,active" + System.lineSeparator();
+        Files.writeString(dir.resolve("users.csv"), users);
+        Files.writeString(dir.resolve("loans.csv"), loans);
+        // A rewrite cannot replace a directory that has files in it
+        Files.createDirectories(dir.resolve("blocked").resolve("inside"));
+
+        try (WriteAheadLog wal = WriteAheadLog.open(dir)) {
+            WriteAheadLog.Operation op = new WriteAheadLog.Operation("failing")
+                    .patch("users.csv", users.indexOf("ann"), "bob")
+                    .rewrite("loans.csv", List.of("id,status", "1,paid"))
+                    .append("users.csv", "2,cat")
+                    .rewrite("blocked", List.of("x"));
+            assertThrows(IOException.class, () -> wal.commit(op));
+
+            assertEquals(users, Files.readString(dir.resolve("users.csv")));
+            assertEquals(loans, Files.readString(dir.resolve("loans.csv")));
+
+            // Later operations start from the restored files
+            wal.commit(new WriteAheadLog.Operation("append").append("users.csv", "2,cat"));
+        }
+        assertEquals(users + "2,cat" + System.lineSeparator(), Files.readString(dir.resolve("users.csv")));
+        assertEquals(0, Files.size(dir.resolve(WriteAheadLog.WAL_FILE)));
+    }
+}